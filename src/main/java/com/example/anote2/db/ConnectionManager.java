@@ -0,0 +1,272 @@
+package com.example.anote2.db;
+
+import javafx.application.Platform;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Owns the SQLite connections for the app: one long-lived write connection guarded by a lock
+// and a small pool of read-only connections. WAL lets readers run alongside the writer.
+public class ConnectionManager implements AutoCloseable {
+    private static final int READ_POOL_SIZE = 4;
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    private static final int CACHE_SIZE_KB = 16 * 1024;
+    private static final long MMAP_SIZE_BYTES = 256L * 1024 * 1024;
+    // Run with -Danote.db.assertOffFx=true to fail fast on JDBC work issued from the FX thread
+    private static final boolean ASSERT_OFF_FX = Boolean.getBoolean("anote.db.assertOffFx");
+
+    // Backup copies this many pages per step, pausing between steps so it never hogs the disk
+    private static final int BACKUP_PAGES_PER_STEP = 256;
+    private static final int BACKUP_STEP_PAUSE_MS = 2;
+    private static final int SQLITE_OK = 0;
+    static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final String url;
+    private final boolean inMemory;
+    private final Connection writeConnection;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<Connection> readPool = new ArrayBlockingQueue<>(READ_POOL_SIZE);
+    private final List<Connection> readConnections = new ArrayList<>();
+    private volatile boolean closed;
+    private volatile long lastWriteNanos = System.nanoTime();
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    public ConnectionManager(String url) throws SQLException {
+        this(url, false);
+    }
+
+    // An in-memory database has no WAL, and shared-cache readers would take table locks that
+    // block the writer, so in that mode reads share the write connection instead of a pool
+    public ConnectionManager(DatabaseConfig config) throws SQLException {
+        this(config.url(), config.isInMemory());
+    }
+
+    private ConnectionManager(String url, boolean inMemory) throws SQLException {
+        this.url = url;
+        this.inMemory = inMemory;
+        writeConnection = DriverManager.getConnection(url);
+        try (Statement stmt = writeConnection.createStatement()) {
+            enableIncrementalVacuum(stmt);
+            if (!inMemory) {
+                // journal_mode is persistent in the file, so setting it once on the writer is enough
+                stmt.execute("PRAGMA journal_mode = WAL");
+            }
+        }
+        configure(writeConnection);
+        if (inMemory) return;
+
+        for (int i = 0; i < READ_POOL_SIZE; i++) {
+            Connection conn = DriverManager.getConnection(url);
+            configure(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+            readConnections.add(conn);
+            readPool.add(conn);
+        }
+    }
+
+    // Incremental vacuum lets NoteCompactor give free pages back in small steps. A new file only
+    // needs the pragma before its first table. An existing file also needs a full VACUUM, which
+    // takes time proportional to its size, so NoteCompactor does that once in a quiet period
+    // instead of making startup wait for it.
+    private static void enableIncrementalVacuum(Statement stmt) throws SQLException {
+        boolean empty;
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master")) {
+            empty = !rs.next() || rs.getInt(1) == 0;
+        }
+        if (empty) {
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+        }
+    }
+
+    static void configure(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA cache_size = -" + CACHE_SIZE_KB);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+            stmt.execute("PRAGMA temp_store = MEMORY");
+        }
+    }
+
+    // Runs work on the shared write connection; callers are serialized
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        return locked(work, true);
+    }
+
+    // Like write, but does not count as activity for idleMillis(); for background maintenance
+    <T> T maintenance(SqlWork<T> work) throws SQLException {
+        return locked(work, false);
+    }
+
+    private <T> T locked(SqlWork<T> work, boolean activity) throws SQLException {
+        ensureOpen();
+        writeLock.lock();
+        try {
+            return work.apply(writeConnection);
+        } finally {
+            if (activity) {
+                lastWriteNanos = System.nanoTime();
+            }
+            writeLock.unlock();
+        }
+    }
+
+    // Milliseconds since the last write finished; maintenance uses this to wait for quiet periods
+    public long idleMillis() {
+        return (System.nanoTime() - lastWriteNanos) / 1_000_000;
+    }
+
+    // Runs work inside a single transaction on the write connection
+    public <T> T transaction(SqlWork<T> work) throws SQLException {
+        return write(conn -> inTransaction(conn, work));
+    }
+
+    static <T> T inTransaction(Connection conn, SqlWork<T> work) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            T result = work.apply(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Borrows a read-only connection from the pool for the duration of work
+    public <T> T read(SqlWork<T> work) throws SQLException {
+        if (inMemory) {
+            return locked(work, false);
+        }
+        ensureOpen();
+        Connection conn;
+        try {
+            conn = readPool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+        try {
+            return work.apply(conn);
+        } finally {
+            readPool.offer(conn);
+        }
+    }
+
+    // Copies the database into target with SQLite's online backup API, a few pages per step.
+    // The copy runs on its own connection inside one read transaction: under WAL that pins a
+    // snapshot, so writers keep going and the backup never restarts because of their changes.
+    public void backup(Path target) throws SQLException {
+        if (inMemory) {
+            // A second connection could not read without blocking the writer, so this copy holds the
+            // write lock; it takes everything in one step, with no pauses to stretch that out
+            maintenance(conn -> {
+                copy(conn, target, -1, 0);
+                return null;
+            });
+            return;
+        }
+        ensureOpen();
+        try (Connection conn = DriverManager.getConnection(url)) {
+            configure(conn);
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                // The first read starts the snapshot
+                stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master").close();
+            }
+
+            try {
+                copy(conn, target, BACKUP_PAGES_PER_STEP, BACKUP_STEP_PAUSE_MS);
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                // The pinned snapshot held back checkpoints; catch up here rather than in the next write
+                stmt.execute("PRAGMA wal_checkpoint(PASSIVE)");
+            }
+        }
+    }
+
+    // pagesPerStep -1 copies the whole database in one step
+    private static void copy(Connection conn, Path target, int pagesPerStep, int pauseMillis) throws SQLException {
+        DB db = conn.unwrap(SQLiteConnection.class).getDatabase();
+        int result = db.backup("main", target.toString(), (remaining, pageCount) -> {
+            if (remaining > 0 && pauseMillis > 0) {
+                pause(pauseMillis);
+            }
+        }, BUSY_TIMEOUT_MS / 10, 10, pagesPerStep);
+        if (result != SQLITE_OK) {
+            throw new SQLException("Backup to " + target + " failed with SQLite result code " + result);
+        }
+    }
+
+    private static void pause(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection manager is closed");
+        }
+        if (ASSERT_OFF_FX && Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("JDBC call on the FX application thread");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        for (Connection conn : readConnections) {
+            closeQuietly(conn);
+        }
+        readConnections.clear();
+        readPool.clear();
+
+        writeLock.lock();
+        try {
+            try (Statement stmt = writeConnection.createStatement()) {
+                // Fold the WAL back into the main file so a clean shutdown leaves a single file
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            closeQuietly(writeConnection);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
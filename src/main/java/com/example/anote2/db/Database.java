@@ -1,181 +1,782 @@
 package com.example.anote2.db;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import model.Note;
+import model.RecurrenceRule;
 import model.Task;
 
-import java.io.File;
-import java.lang.reflect.Type;
 import java.sql.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @SuppressWarnings("ALL")
 public class Database {
-    private static final String DB_PATH = System.getProperty("user.home") + File.separator + "anote-notes.db";
-    private static final String DB_URL = "jdbc:sqlite:" + DB_PATH;
-
-    private static final Gson gson = new Gson();
-    private static final Type taskListType = new TypeToken<List<Task>>() {}.getType();
     private static LocalTime LocalTime;
+    // Override the number of notes kept hot with -Danote.db.cacheSize=N
+    private static final NoteCache noteCache = new NoteCache(Integer.getInteger("anote.db.cacheSize", 1000));
 
-    static {
-        createTableIfNotExists();
-    }
+    private static DatabaseConfig config;
+    private static ConnectionManager connections;
+    private static WriteBehindQueue writeQueue;
 
+    // Opens the database named by DatabaseConfig.load() and brings its schema up to date
     public static void initialize() {
-        System.out.println("Initializing database at: " + DB_PATH);
+        initialize(DatabaseConfig.load());
+    }
+
+    // Opens the given database, closing any other one first
+    public static synchronized void initialize(DatabaseConfig databaseConfig) {
+        if (config != null && !config.equals(databaseConfig)) {
+            shutdown();
+        }
+        config = databaseConfig;
+        System.out.println("Initializing database at: " + config);
+        DatabaseMetrics.registerMBean();
         createTableIfNotExists();
     }
 
+    public static synchronized DatabaseConfig config() {
+        return config;
+    }
+
+    static synchronized ConnectionManager connections() throws SQLException {
+        if (config == null) {
+            throw new SQLException("Database.initialize() has not been called");
+        }
+        if (connections == null) {
+            connections = new ConnectionManager(config);
+        }
+        return connections;
+    }
+
+    private static synchronized WriteBehindQueue writeQueue() {
+        if (writeQueue == null) {
+            writeQueue = new WriteBehindQueue(Database::updateNotes);
+        }
+        return writeQueue;
+    }
+
+    // Closes the connections; call initialize() again before further use
+    public static synchronized void shutdown() {
+        if (writeQueue != null) {
+            writeQueue.shutdown();
+            writeQueue = null;
+        }
+        if (connections != null) {
+            connections.close();
+            connections = null;
+        }
+        if (config != null) {
+            System.out.println(DatabaseMetrics.report());
+            // Memory and temp databases are gone after this, so cached notes would be stale
+            noteCache.clear();
+            config.cleanup();
+            config = null;
+        }
+    }
+
+    public static NoteCache.Stats cacheStats() {
+        return noteCache.stats();
+    }
+
     private static void createTableIfNotExists() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS notes (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                content TEXT NOT NULL,
-                color TEXT NOT NULL,
-                date TEXT NOT NULL,
-                tasks TEXT,
-                reminder_date TEXT,
-                reminder_time TEXT
-            );
-        """;
-
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Database table checked/created successfully.");
+        try {
+            SchemaMigrations.migrate(connections());
+            System.out.println("Database schema is at version " + SchemaMigrations.latestVersion() + ".");
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    static void bindTasks(PreparedStatement insert, int noteId, List<Task> tasks) throws SQLException {
+        for (int position = 0; position < tasks.size(); position++) {
+            Task task = tasks.get(position);
+            insert.setInt(1, noteId);
+            insert.setInt(2, position);
+            insert.setString(3, task.getDescription() != null ? task.getDescription() : "");
+            insert.setInt(4, task.isCompleted() ? 1 : 0);
+            insert.addBatch();
+        }
+    }
+
     public static void insertNote(Note note) {
-        String sql = "INSERT INTO notes (content, color, date, tasks, reminder_date, reminder_time) VALUES (?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, note.getContent());
-            pstmt.setString(2, note.getColor());
-            pstmt.setString(3, note.getDate().toString());
-            pstmt.setString(4, gson.toJson(note.getTasks()));
-
-            // Insert reminder date and time, handling null values
-            if (note.getReminderDate() != null) {
-                pstmt.setString(5, note.getReminderDate().toString());
-                pstmt.setString(6, note.getReminderTime().toString());
+        String sql = "INSERT INTO notes (content, color, date, reminder_date, reminder_time, reminder_at, reminder_rule, created_day) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().transaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    bindNoteColumns(pstmt, note);
+                    pstmt.setLong(8, note.getDate().toEpochDay());
+                    pstmt.executeUpdate();
+                }
+
+                // The write connection is held under lock, so last_insert_rowid() is ours
+                note.setId(lastInsertId(conn));
+                if (!note.getTasks().isEmpty()) {
+                    replaceTasks(conn, note);
+                }
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.INSERT, start, 1);
+            note.markClean();
+            noteCache.put(note);
+            NoteChangeFeed.publish(NoteChange.inserted(note));
+
+            System.out.println("Inserted note: " + note.getContent());
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.INSERT, start);
+            e.printStackTrace();
+        }
+    }
+
+    private static int lastInsertId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static final String NOTE_COLUMNS = "id, content, color, date, reminder_date, reminder_time, reminder_rule";
+
+    static Note readNote(ResultSet rs) throws SQLException {
+        int id = rs.getInt("id");
+        String content = rs.getString("content");
+        String color = rs.getString("color");
+        LocalDate date = LocalDate.parse(rs.getString("date"));
+
+        // Retrieve reminder date and time
+        String reminderDateString = rs.getString("reminder_date");
+        String reminderTimeString = rs.getString("reminder_time");
+        LocalDate reminderDate = null;
+        LocalTime reminderTime = null;
+
+        if (reminderDateString != null) {
+            reminderDate = LocalDate.parse(reminderDateString);
+        }
+        if (reminderTimeString != null) {
+            reminderTime = LocalTime.parse(reminderTimeString);
+        }
+
+        // Tasks stay in their own table until loadTasks() asks for them
+        Note note = new Note(content, color, date);
+        note.setId(id); // Set the ID
+        if (reminderDate != null && reminderTime != null) {
+            note.setReminder(reminderDate, reminderTime); // Set the reminder
+            String rule = rs.getString("reminder_rule");
+            if (rule != null) {
+                note.setRecurrence(RecurrenceRule.parse(rule));
+            }
+            // Reminders that came due before this load are not fired again
+            if (note.nextReminderAt(Instant.now()) == null) {
+                note.setReminderDone(true);
+            }
+        }
+        note.markClean();
+        return note;
+    }
+
+    // Returns the cached instance for the row's note, reading the row only on a miss
+    private static Note cachedNote(ResultSet rs) throws SQLException {
+        Note cached = noteCache.get(rs.getInt("id"));
+        return cached != null ? cached : noteCache.intern(readNote(rs));
+    }
+
+    // Returns the note with id, or null if it does not exist; cached notes cost no query
+    public static Note getNote(int id) {
+        List<Note> notes = getNotes(List.of(id));
+        return notes.isEmpty() ? null : notes.getFirst();
+    }
+
+    // Returns the notes with the given ids in the same order, skipping ids that do not exist.
+    // Only ids missing from the cache are read, in one query.
+    public static List<Note> getNotes(List<Integer> ids) {
+        Map<Integer, Note> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int id : ids) {
+            Note cached = noteCache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
             } else {
-                pstmt.setString(5, null);
-                pstmt.setString(6, null);
+                missing.add(id);
             }
+        }
 
-            pstmt.executeUpdate();
+        if (!missing.isEmpty()) {
+            String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(missing.size(), "?")) + ") AND deleted_at IS NULL";
+            long start = DatabaseMetrics.start();
+            try {
+                connections().read(conn -> {
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < missing.size(); i++) {
+                            pstmt.setInt(i + 1, missing.get(i));
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                Note note = noteCache.intern(readNote(rs));
+                                found.put(note.getId(), note);
+                            }
+                        }
+                    }
+                    return null;
+                });
+                DatabaseMetrics.record(DatabaseMetrics.Operation.LOAD, start, found.size());
+            } catch (SQLException e) {
+                DatabaseMetrics.recordError(DatabaseMetrics.Operation.LOAD, start);
+                e.printStackTrace();
+            }
+        }
 
-            ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                note.setId(generatedKeys.getInt(1));
+        List<Note> notes = new ArrayList<>();
+        for (int id : ids) {
+            Note note = found.get(id);
+            if (note != null) {
+                notes.add(note);
             }
+        }
+        return notes;
+    }
 
-            System.out.println("Inserted note: " + note.getContent());
+    // Opens a newest-first cursor over the notes matching filter
+    public static NoteCursor openCursor(NoteFilter filter, int pageSize) {
+        return new NoteCursor(filter, pageSize);
+    }
+
+    // Returns up to limit notes with id below beforeId, newest first
+    public static List<Note> getNotesPage(NoteFilter filter, int beforeId, int limit) {
+        List<Note> notes = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + NOTE_COLUMNS + " FROM notes WHERE deleted_at IS NULL AND id < ?");
+        params.add(beforeId);
+        filter.appendTo(sql, params);
+        sql.append(" ORDER BY id DESC LIMIT ?");
+        params.add(limit);
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().read(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < params.size(); i++) {
+                        pstmt.setObject(i + 1, params.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            notes.add(cachedNote(rs));
+                        }
+                    }
+                }
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.LOAD, start, notes.size());
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.LOAD, start);
+            e.printStackTrace();
+        }
+
+        return notes;
+    }
+
+    // Returns ids of notes whose content or tasks match every word of query, best match first.
+    // Each word is matched as a prefix, so "gro lis" finds "grocery list".
+    public static List<Integer> searchNotes(String query, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        String match = toMatchExpression(query);
+        if (match.isEmpty()) return ids;
+
+        String sql = "SELECT rowid FROM notes_fts WHERE notes_fts MATCH ? ORDER BY rank LIMIT ?";
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().read(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, match);
+                    pstmt.setInt(2, limit);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt(1));
+                        }
+                    }
+                }
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.SEARCH, start, ids.size());
         } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.SEARCH, start);
             e.printStackTrace();
         }
+
+        return ids;
+    }
+
+    // Quotes each word so FTS5 operators typed by the user are treated as plain text
+    private static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            if (term.isEmpty()) continue;
+            if (!match.isEmpty()) match.append(' ');
+            match.append('"').append(term).append("\"*");
+        }
+        return match.toString();
     }
 
     public static List<Note> getAllNotes() {
         List<Note> notes = new ArrayList<>();
-        String sql = "SELECT id, content, color, date, tasks, reminder_date, reminder_time FROM notes";
-
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String content = rs.getString("content");
-                String color = rs.getString("color");
-                LocalDate date = LocalDate.parse(rs.getString("date"));
-                String tasksJson = rs.getString("tasks");
-
-                // Retrieve reminder date and time
-                String reminderDateString = rs.getString("reminder_date");
-                String reminderTimeString = rs.getString("reminder_time");
-                LocalDate reminderDate = null;
-                LocalTime reminderTime = null;
-
-                if (reminderDateString != null) {
-                    reminderDate = LocalDate.parse(reminderDateString);
-                }
-                if (reminderTimeString != null) {
-                    reminderTime = LocalTime.parse(reminderTimeString);
-                }
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE deleted_at IS NULL";
 
-                List<Task> tasks = gson.fromJson(tasksJson, taskListType);
-                if (tasks == null) tasks = new ArrayList<>();
+        long start = DatabaseMetrics.start();
+        try {
+            connections().read(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
 
-                Note note = new Note(content, color, date);
-                note.setId(id); // Set the ID
-                note.setTasks(tasks); // Set the tasks
-                if (reminderDate != null && reminderTime != null) {
-                    note.setReminder(reminderDate, reminderTime); // Set the reminder
+                    while (rs.next()) {
+                        notes.add(cachedNote(rs));
+                    }
                 }
+                return null;
+            });
 
-                notes.add(note);
-            }
-
+            DatabaseMetrics.record(DatabaseMetrics.Operation.LOAD, start, notes.size());
             System.out.println("Loaded " + notes.size() + " notes from DB.");
         } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.LOAD, start);
             e.printStackTrace();
         }
 
         return notes;
     }
 
+    // Writes only the columns the note reports as changed; a clean note costs nothing
     public static void updateNote(Note note) {
-        String sql = "UPDATE notes SET content = ?, color = ?, date = ?, tasks = ?, reminder_date = ?, reminder_time = ? WHERE id = ?";
-
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, note.getContent());
-            pstmt.setString(2, note.getColor());
-            pstmt.setString(3, note.getDate().toString());
-            pstmt.setString(4, gson.toJson(note.getTasks()));
-
-            // Update reminder date and time, handling null values
-            if (note.getReminderDate() != null) {
-                pstmt.setString(5, note.getReminderDate().toString());
-                pstmt.setString(6, note.getReminderTime().toString());
-            } else {
-                pstmt.setString(5, null);
-                pstmt.setString(6, null);
+        Set<Note.Field> fields = note.getDirtyFields();
+        try {
+            if (updateNotes(List.of(note)) > 0) {
+                NoteChangeFeed.publish(NoteChange.updated(note, fields));
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
-            pstmt.setInt(7, note.getId());
-            pstmt.executeUpdate();
+    // Queues the note for the next batched write instead of writing it now, and announces the
+    // change right away so views stay in step with the in-memory note
+    public static void queueUpdate(Note note) {
+        if (note.getId() <= 0) return;
+        Set<Note.Field> fields = note.getDirtyFields();
+        if (note.isDirty()) {
+            writeQueue().enqueue(note);
+        }
+        NoteChangeFeed.publish(NoteChange.updated(note, fields));
+    }
 
-            System.out.println("Updated note ID " + note.getId());
+    // Blocks until every queued update has been committed
+    public static void flush() {
+        writeQueue().flush();
+    }
+
+    // Changes taken from a note before writing, so they can be put back if the write fails
+    private record PendingWrite(Note note, Set<Note.Field> fields, List<Integer> taskPositions) {
+        boolean isEmpty() {
+            return fields.isEmpty() && taskPositions.isEmpty();
+        }
+
+        void restore() {
+            fields.forEach(note::markDirty);
+            if (!taskPositions.isEmpty()) {
+                note.markDirty(Note.Field.TASKS);
+            }
+        }
+    }
+
+    private static PendingWrite takeChanges(Note note) {
+        Set<Note.Field> fields = note.takeDirtyFields();
+        List<Integer> taskPositions = new ArrayList<>();
+        List<Task> tasks = note.getTasks();
+        for (int position = 0; position < tasks.size(); position++) {
+            if (tasks.get(position).takeDirty()) {
+                taskPositions.add(position);
+            }
+        }
+        return new PendingWrite(note, fields, taskPositions);
+    }
+
+    // Writes the changed columns of all notes in one transaction, reusing one statement per
+    // distinct column set. Returns how many notes had changes to write.
+    static int updateNotes(List<Note> notes) throws SQLException {
+        List<PendingWrite> writes = new ArrayList<>();
+        for (Note note : notes) {
+            PendingWrite write = takeChanges(note);
+            if (!write.isEmpty()) {
+                writes.add(write);
+            }
+        }
+        if (writes.isEmpty()) return 0;
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().transaction(conn -> {
+                Map<String, PreparedStatement> statements = new LinkedHashMap<>();
+                try {
+                    for (PendingWrite write : writes) {
+                        addChanges(conn, statements, write);
+                    }
+                    for (PreparedStatement pstmt : statements.values()) {
+                        pstmt.executeBatch();
+                    }
+                } finally {
+                    for (PreparedStatement pstmt : statements.values()) {
+                        pstmt.close();
+                    }
+                }
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.UPDATE, start, writes.size());
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.UPDATE, start);
+            writes.forEach(PendingWrite::restore);
+            throw e;
+        }
+
+        // The batch size shows up as UPDATE rows in DatabaseMetrics
+        return writes.size();
+    }
+
+    private static void addChanges(Connection conn, Map<String, PreparedStatement> statements, PendingWrite write) throws SQLException {
+        Note note = write.note();
+        Set<Note.Field> fields = write.fields();
+
+        if (fields.contains(Note.Field.CONTENT) || fields.contains(Note.Field.REMINDER)) {
+            List<String> columns = new ArrayList<>();
+            if (fields.contains(Note.Field.CONTENT)) {
+                columns.add("content = ?");
+            }
+            if (fields.contains(Note.Field.REMINDER)) {
+                columns.add("reminder_date = ?");
+                columns.add("reminder_time = ?");
+                columns.add("reminder_at = ?");
+                columns.add("reminder_rule = ?");
+            }
+            String sql = "UPDATE notes SET " + String.join(", ", columns) + " WHERE id = ?";
+            PreparedStatement pstmt = statements.get(sql);
+            if (pstmt == null) {
+                pstmt = conn.prepareStatement(sql);
+                statements.put(sql, pstmt);
+            }
+
+            int index = 1;
+            if (fields.contains(Note.Field.CONTENT)) {
+                pstmt.setString(index++, note.getContent());
+            }
+            if (fields.contains(Note.Field.REMINDER)) {
+                if (note.hasReminder()) {
+                    pstmt.setString(index++, note.getReminderDate().toString());
+                    pstmt.setString(index++, note.getReminderTime().toString());
+                    pstmt.setLong(index++, reminderEpochMillis(note));
+                    pstmt.setString(index++, ruleText(note));
+                } else {
+                    pstmt.setString(index++, null);
+                    pstmt.setString(index++, null);
+                    pstmt.setNull(index++, Types.INTEGER);
+                    pstmt.setString(index++, null);
+                }
+            }
+            pstmt.setInt(index, note.getId());
+            pstmt.addBatch();
+        }
+
+        if (fields.contains(Note.Field.TASKS)) {
+            // The list itself was replaced, so per-row updates are not enough
+            replaceTasks(conn, note);
+        } else if (!write.taskPositions().isEmpty()) {
+            String sql = "UPDATE tasks SET description = ?, completed = ? WHERE note_id = ? AND position = ?";
+            PreparedStatement pstmt = statements.get(sql);
+            if (pstmt == null) {
+                pstmt = conn.prepareStatement(sql);
+                statements.put(sql, pstmt);
+            }
+            for (int position : write.taskPositions()) {
+                bindTaskUpdate(pstmt, note, position);
+                pstmt.addBatch();
+            }
+
+            // Added after the task update, so its batch runs after that one
+            PreparedStatement index = statements.get(INDEX_TASKS_SQL);
+            if (index == null) {
+                index = conn.prepareStatement(INDEX_TASKS_SQL);
+                statements.put(INDEX_TASKS_SQL, index);
+            }
+            bindIndexTasks(index, note.getId());
+            index.addBatch();
+        }
+    }
+
+    // Binds content, color, date, reminder_date, reminder_time, reminder_at and reminder_rule as parameters 1-7
+    static void bindNoteColumns(PreparedStatement pstmt, Note note) throws SQLException {
+        pstmt.setString(1, note.getContent());
+        pstmt.setString(2, note.getColor());
+        pstmt.setString(3, note.getDate().toString());
+
+        // Reminder date and time, handling null values
+        if (note.hasReminder()) {
+            pstmt.setString(4, note.getReminderDate().toString());
+            pstmt.setString(5, note.getReminderTime().toString());
+            pstmt.setLong(6, reminderEpochMillis(note));
+            pstmt.setString(7, ruleText(note));
+        } else {
+            pstmt.setString(4, null);
+            pstmt.setString(5, null);
+            pstmt.setNull(6, Types.INTEGER);
+            pstmt.setString(7, null);
+        }
+    }
+
+    // reminder_at is the first occurrence; later ones of a recurring reminder are computed from
+    // reminder_rule when needed instead of being stored
+    private static long reminderEpochMillis(Note note) {
+        return note.getReminderAt().toEpochMilli();
+    }
+
+    private static String ruleText(Note note) {
+        return note.getRecurrence() != null ? note.getRecurrence().toString() : null;
+    }
+
+    // Returns ids of notes whose reminder falls in (from, to], earliest first.
+    // Served by the partial index on reminder_at, so the cost scales with the number of hits.
+    public static List<Integer> findDueReminders(Instant from, Instant to) {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT id FROM notes WHERE reminder_at > ? AND reminder_at <= ? AND deleted_at IS NULL ORDER BY reminder_at";
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().read(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, from.toEpochMilli());
+                    pstmt.setLong(2, to.toEpochMilli());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt(1));
+                        }
+                    }
+                }
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.REMINDERS, start, ids.size());
         } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.REMINDERS, start);
             e.printStackTrace();
         }
+
+        return ids;
     }
 
-    public static void deleteNote(Note note) {
-        String sql = "DELETE FROM notes WHERE id = ?";
+    // Returns the next due time of every reminder after from, keyed by note id. One-shot reminders
+    // come from the reminder_at index; recurring ones get their next occurrence computed here.
+    public static Map<Integer, Instant> findUpcomingReminders(Instant from) {
+        Map<Integer, Instant> reminders = new LinkedHashMap<>();
+        String sql = "SELECT reminder_at, " + NOTE_COLUMNS + " FROM notes"
+                + " WHERE reminder_at IS NOT NULL AND (reminder_at > ? OR reminder_rule IS NOT NULL) AND deleted_at IS NULL"
+                + " ORDER BY reminder_at";
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().read(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, from.toEpochMilli());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Instant next = Instant.ofEpochMilli(rs.getLong("reminder_at"));
+                            String rule = rs.getString("reminder_rule");
+                            if (rule != null && !next.isAfter(from)) {
+                                next = readNote(rs).nextReminderAt(from);
+                            }
+                            if (next != null) {
+                                reminders.put(rs.getInt("id"), next);
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.REMINDERS, start, reminders.size());
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.REMINDERS, start);
+            e.printStackTrace();
+        }
+
+        return reminders;
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, note.getId());
+    // Fills the note's task list from the tasks table
+    public static void loadTasks(Note note) {
+        String sql = "SELECT description, completed FROM tasks WHERE note_id = ? ORDER BY position";
+
+        long start = DatabaseMetrics.start();
+        try {
+            List<Task> tasks = connections().read(conn -> {
+                List<Task> loaded = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, note.getId());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            loaded.add(new Task(rs.getString("description"), rs.getInt("completed") != 0));
+                        }
+                    }
+                }
+                return loaded;
+            });
+            note.setTasks(tasks);
+            note.clearDirty(Note.Field.TASKS);
+            DatabaseMetrics.record(DatabaseMetrics.Operation.TASKS, start, tasks.size());
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.TASKS, start);
+            e.printStackTrace();
+        }
+    }
+
+    // Rewrites the whole task list, for when tasks were added, removed or reordered
+    public static void saveTasks(Note note) {
+        long start = DatabaseMetrics.start();
+        try {
+            connections().transaction(conn -> {
+                replaceTasks(conn, note);
+                return null;
+            });
+            note.clearDirty(Note.Field.TASKS);
+            note.getTasks().forEach(Task::takeDirty);
+            DatabaseMetrics.record(DatabaseMetrics.Operation.TASKS, start, note.getTasks().size());
+            NoteChangeFeed.publish(NoteChange.updated(note, Set.of(Note.Field.TASKS)));
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.TASKS, start);
+            e.printStackTrace();
+        }
+    }
+
+    // Writes the single task at position, e.g. after Task.setCompleted
+    public static void updateTask(Note note, int position) {
+        String sql = "UPDATE tasks SET description = ?, completed = ? WHERE note_id = ? AND position = ?";
+        Task task = note.getTasks().get(position);
+        if (!task.takeDirty()) return;
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().transaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    bindTaskUpdate(pstmt, note, position);
+                    pstmt.executeUpdate();
+                }
+                indexTasks(conn, note.getId());
+                return null;
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.TASKS, start, 1);
+            NoteChangeFeed.publish(NoteChange.updated(note, Set.of(Note.Field.TASKS)));
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.TASKS, start);
+            e.printStackTrace();
+            note.markDirty(Note.Field.TASKS);
+        }
+    }
+
+    private static void bindTaskUpdate(PreparedStatement pstmt, Note note, int position) throws SQLException {
+        Task task = note.getTasks().get(position);
+        pstmt.setString(1, task.getDescription() != null ? task.getDescription() : "");
+        pstmt.setInt(2, task.isCompleted() ? 1 : 0);
+        pstmt.setInt(3, note.getId());
+        pstmt.setInt(4, position);
+    }
+
+    private static void replaceTasks(Connection conn, Note note) throws SQLException {
+        try (PreparedStatement delete = conn.prepareStatement("DELETE FROM tasks WHERE note_id = ?")) {
+            delete.setInt(1, note.getId());
+            delete.executeUpdate();
+        }
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO tasks (note_id, position, description, completed) VALUES (?, ?, ?, ?)")) {
+            bindTasks(insert, note.getId(), note.getTasks());
+            insert.executeBatch();
+        }
+        indexTasks(conn, note.getId());
+    }
+
+    private static final String INDEX_TASKS_SQL =
+            "UPDATE notes_fts SET tasks = COALESCE((SELECT group_concat(description, ' ') FROM tasks WHERE note_id = ?), '') WHERE rowid = ?";
+
+    // Rebuilds the tasks column of the note's search document from the tasks table. Task writes
+    // call this once per note, in their own transaction, after all their rows are written.
+    private static void indexTasks(Connection conn, int noteId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INDEX_TASKS_SQL)) {
+            bindIndexTasks(pstmt, noteId);
             pstmt.executeUpdate();
+        }
+    }
+
+    private static void bindIndexTasks(PreparedStatement pstmt, int noteId) throws SQLException {
+        pstmt.setInt(1, noteId);
+        pstmt.setInt(2, noteId);
+    }
+
+    // Soft delete: the row only gets a tombstone, so the trash button is a single-row update and
+    // the note can be restored until NoteCompactor purges it
+    public static void deleteNote(Note note) {
+        String sql = "UPDATE notes SET deleted_at = ? WHERE id = ? AND deleted_at IS NULL";
+        noteCache.remove(note.getId());
+        // A queued update would otherwise still be written to the deleted row on the next flush
+        writeQueue().discard(note.getId());
+
+        long start = DatabaseMetrics.start();
+        try {
+            connections().write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, System.currentTimeMillis());
+                    pstmt.setInt(2, note.getId());
+                    pstmt.executeUpdate();
+                }
+                return null;
+            });
 
+            DatabaseMetrics.record(DatabaseMetrics.Operation.DELETE, start, 1);
             System.out.println("Deleted note ID " + note.getId());
+            NoteChangeFeed.publish(NoteChange.deleted(note.getId()));
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.DELETE, start);
+            e.printStackTrace();
+        }
+    }
+
+    // Undoes deleteNote if the tombstone has not been purged yet; returns whether it was
+    public static boolean restoreNote(Note note) {
+        String sql = "UPDATE notes SET deleted_at = NULL WHERE id = ? AND deleted_at IS NOT NULL";
+
+        long start = DatabaseMetrics.start();
+        try {
+            int restored = connections().write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, note.getId());
+                    return pstmt.executeUpdate();
+                }
+            });
+            DatabaseMetrics.record(DatabaseMetrics.Operation.DELETE, start, restored);
+            if (restored == 0) return false;
+
+            noteCache.put(note);
+            System.out.println("Restored note ID " + note.getId());
+            NoteChangeFeed.publish(NoteChange.inserted(note));
+            return true;
         } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.DELETE, start);
             e.printStackTrace();
+            return false;
         }
     }
 
     public static void testInsertNote() {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package com.example.anote2.db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Timestamped snapshots of the notes database in ~/anote-backups, keeping the newest few.
+// A snapshot is written to a temporary file and renamed into place, so a crash mid-backup
+// never leaves a torn file that looks like a finished snapshot.
+public class DatabaseBackup {
+    private static final Path BACKUP_DIR = Path.of(System.getProperty("user.home"), "anote-backups");
+    private static final String PREFIX = "anote-notes-";
+    private static final String SUFFIX = ".db";
+    private static final String TEMP_SUFFIX = ".db.tmp";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    // Override with -Danote.db.backups.keep=N
+    private static final int KEEP = Integer.getInteger("anote.db.backups.keep", 5);
+
+    public static Path backupDirectory() {
+        return BACKUP_DIR;
+    }
+
+    // Runs the backup on the calling thread; call it from a background thread
+    public static Path snapshot() throws IOException, SQLException {
+        Files.createDirectories(BACKUP_DIR);
+        String name = PREFIX + LocalDateTime.now().format(STAMP);
+        Path target = BACKUP_DIR.resolve(name + SUFFIX);
+        Path temp = BACKUP_DIR.resolve(name + TEMP_SUFFIX);
+
+        long start = System.nanoTime();
+        try {
+            Database.connections().backup(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        System.out.printf("Backed up notes to %s in %d ms.%n", target, (System.nanoTime() - start) / 1_000_000);
+
+        rotate();
+        return target;
+    }
+
+    // Takes a snapshot only if the newest one is older than maxAge; returns null when skipped
+    public static Path snapshotIfOlderThan(Duration maxAge) throws IOException, SQLException {
+        List<Path> snapshots = listSnapshots();
+        if (!snapshots.isEmpty()) {
+            Instant newest = Files.getLastModifiedTime(snapshots.getFirst()).toInstant();
+            if (newest.isAfter(Instant.now().minus(maxAge))) {
+                return null;
+            }
+        }
+        return snapshot();
+    }
+
+    // Finished snapshots, newest first
+    public static List<Path> listSnapshots() throws IOException {
+        if (!Files.isDirectory(BACKUP_DIR)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(BACKUP_DIR)) {
+            // The timestamp format sorts lexically in time order
+            return files.filter(path -> isSnapshot(path.getFileName().toString()))
+                    .sorted((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    // Deletes all but the newest KEEP snapshots, plus temp files left behind by interrupted runs
+    private static void rotate() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (Path old : snapshots.subList(Math.min(KEEP, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+            System.out.println("Removed old backup " + old);
+        }
+
+        try (Stream<Path> files = Files.list(BACKUP_DIR)) {
+            for (Path stale : files.filter(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX)).toList()) {
+                Files.deleteIfExists(stale);
+            }
+        }
+    }
+
+    private static boolean isSnapshot(String fileName) {
+        return fileName.startsWith(PREFIX) && fileName.endsWith(SUFFIX);
+    }
+}
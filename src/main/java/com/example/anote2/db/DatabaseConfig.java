@@ -0,0 +1,113 @@
+package com.example.anote2.db;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Where the notes database lives. load() reads, in order of precedence, the system properties
+// anote.db.url, anote.db.mode and anote.db.path, then the same keys without the "anote." prefix
+// from ~/anote.properties (or the file named by -Danote.config), then falls back to
+// ~/anote-notes.db. Modes:
+//   file   - a database file at db.path
+//   memory - a shared in-memory database that lives until Database.shutdown()
+//   temp   - a fresh file in the temp directory, deleted on shutdown
+public record DatabaseConfig(Mode mode, String url, Path path) {
+    private static final String DEFAULT_FILE_NAME = "anote-notes.db";
+    private static final AtomicInteger memoryCounter = new AtomicInteger();
+
+    public enum Mode { FILE, MEMORY, TEMP }
+
+    public static DatabaseConfig load() {
+        Properties file = readConfigFile();
+        String url = setting(file, "db.url");
+        String mode = setting(file, "db.mode");
+        String path = setting(file, "db.path");
+
+        if (url != null) {
+            return new DatabaseConfig(Mode.FILE, url, null);
+        }
+        switch (mode == null ? "file" : mode.toLowerCase(Locale.ROOT)) {
+            case "memory":
+                return memory();
+            case "temp":
+                return temp();
+            case "file":
+                return file(path != null ? Path.of(path) : Path.of(System.getProperty("user.home"), DEFAULT_FILE_NAME));
+            default:
+                throw new IllegalArgumentException("Unknown database mode: " + mode);
+        }
+    }
+
+    public static DatabaseConfig file(Path path) {
+        Path absolute = path.toAbsolutePath();
+        return new DatabaseConfig(Mode.FILE, "jdbc:sqlite:" + absolute, absolute);
+    }
+
+    // Every call gets its own database, so parallel benchmarks stay isolated.
+    // The shared cache lets the backup connection see the same data.
+    public static DatabaseConfig memory() {
+        String name = "anote-" + ProcessHandle.current().pid() + "-" + memoryCounter.incrementAndGet();
+        return new DatabaseConfig(Mode.MEMORY, "jdbc:sqlite:file:" + name + "?mode=memory&cache=shared", null);
+    }
+
+    public static DatabaseConfig temp() {
+        try {
+            Path path = Files.createTempFile("anote-notes-", ".db");
+            // SQLite treats an empty file as a new database
+            return new DatabaseConfig(Mode.TEMP, "jdbc:sqlite:" + path, path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create a temporary database file", e);
+        }
+    }
+
+    public boolean isInMemory() {
+        return mode == Mode.MEMORY;
+    }
+
+    // Removes what this configuration leaves behind once the connections are closed
+    void cleanup() {
+        if (mode != Mode.TEMP) return;
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            try {
+                Files.deleteIfExists(Path.of(path + suffix));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case FILE -> path != null ? path.toString() : url;
+            case MEMORY -> "in-memory database";
+            case TEMP -> "temporary database " + path;
+        };
+    }
+
+    private static String setting(Properties file, String key) {
+        String value = System.getProperty("anote." + key);
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Properties readConfigFile() {
+        Properties properties = new Properties();
+        String configured = System.getProperty("anote.config");
+        Path path = configured != null ? Path.of(configured) : Path.of(System.getProperty("user.home"), "anote.properties");
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return properties;
+    }
+}
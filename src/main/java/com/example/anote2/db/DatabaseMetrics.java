@@ -0,0 +1,172 @@
+package com.example.anote2.db;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms for every Database operation. Recording is lock-free, so it is
+// cheap enough to leave on; read it through snapshot(), report() or the JMX bean.
+public class DatabaseMetrics implements DatabaseMetricsMXBean {
+    private static final String OBJECT_NAME = "com.example.anote2:type=DatabaseMetrics";
+    private static final DatabaseMetrics instance = new DatabaseMetrics();
+    private static boolean registered;
+
+    public enum Operation { INSERT, UPDATE, DELETE, LOAD, SEARCH, REMINDERS, TASKS, IMPORT, EXPORT }
+
+    private static class OperationStats {
+        final LatencyHistogram latencyNanos = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+    }
+
+    private static final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private static final LongAdder taskJsonBytes = new LongAdder();
+
+    static {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    // Getter-only snapshot so JMX can expose it as composite data
+    public static final class OperationSnapshot {
+        private final String operation;
+        private final long count;
+        private final long errors;
+        private final long rows;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double p999Millis;
+        private final double maxMillis;
+
+        private OperationSnapshot(Operation operation, OperationStats stats) {
+            LatencyHistogram histogram = stats.latencyNanos;
+            this.operation = operation.name();
+            this.count = histogram.count();
+            this.errors = stats.errors.sum();
+            this.rows = stats.rows.sum();
+            this.meanMillis = histogram.mean() / 1e6;
+            this.p50Millis = histogram.percentile(50) / 1e6;
+            this.p99Millis = histogram.percentile(99) / 1e6;
+            this.p999Millis = histogram.percentile(99.9) / 1e6;
+            this.maxMillis = histogram.max() / 1e6;
+        }
+
+        public String getOperation() { return operation; }
+        public long getCount() { return count; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public double getMeanMillis() { return meanMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getP999Millis() { return p999Millis; }
+        public double getMaxMillis() { return maxMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %8d ok %5d err %9d rows  mean %7.2f  p50 %7.2f  p99 %7.2f  p99.9 %7.2f  max %7.2f ms",
+                    operation, count, errors, rows, meanMillis, p50Millis, p99Millis, p999Millis, maxMillis);
+        }
+    }
+
+    // Pair with record/recordError: long start = DatabaseMetrics.start();
+    static long start() {
+        return System.nanoTime();
+    }
+
+    static void record(Operation operation, long start, long rows) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.latencyNanos.record(System.nanoTime() - start);
+        operationStats.rows.add(rows);
+    }
+
+    static void recordError(Operation operation, long start) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.latencyNanos.record(System.nanoTime() - start);
+        operationStats.errors.increment();
+    }
+
+    static void recordTaskJson(String json) {
+        // Task JSON is ASCII apart from user text; length is a close, allocation-free byte estimate
+        taskJsonBytes.add(json.length());
+    }
+
+    public static List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> snapshots = new ArrayList<>();
+        stats.forEach((operation, operationStats) -> {
+            if (operationStats.latencyNanos.count() > 0) {
+                snapshots.add(new OperationSnapshot(operation, operationStats));
+            }
+        });
+        return snapshots;
+    }
+
+    public static String report() {
+        StringBuilder report = new StringBuilder("Database metrics:");
+        for (OperationSnapshot snapshot : snapshot()) {
+            report.append(System.lineSeparator()).append("  ").append(snapshot);
+        }
+        NoteCache.Stats cache = Database.cacheStats();
+        report.append(System.lineSeparator()).append("  task JSON ").append(taskJsonBytes.sum()).append(" bytes")
+                .append(System.lineSeparator()).append("  note cache ").append(cache);
+        return report.toString();
+    }
+
+    public static void resetAll() {
+        stats.values().forEach(operationStats -> {
+            operationStats.latencyNanos.reset();
+            operationStats.errors.reset();
+            operationStats.rows.reset();
+        });
+        taskJsonBytes.reset();
+    }
+
+    // Registers the JMX bean once; failures only cost observability, so they are just reported
+    static synchronized void registerMBean() {
+        if (registered) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(instance, new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        return snapshot();
+    }
+
+    @Override
+    public long getTaskJsonBytes() {
+        return taskJsonBytes.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return Database.cacheStats().hits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return Database.cacheStats().misses();
+    }
+
+    @Override
+    public String getReport() {
+        return report();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.anote2.db;
+
+import java.util.List;
+
+// JMX view of DatabaseMetrics, registered as com.example.anote2:type=DatabaseMetrics
+public interface DatabaseMetricsMXBean {
+    List<DatabaseMetrics.OperationSnapshot> getOperations();
+
+    long getTaskJsonBytes();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    String getReport();
+
+    void reset();
+}
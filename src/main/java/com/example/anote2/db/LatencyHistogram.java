@@ -0,0 +1,80 @@
+package com.example.anote2.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram in the style of HdrHistogram. Values below 64 get their own
+// bucket; above that each power of two is split into 32 linear sub-buckets, so a reported
+// percentile is within about 3% of the recorded value at any magnitude.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int LINEAR_LIMIT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = LINEAR_LIMIT / 2;
+    private static final int BUCKETS = LINEAR_LIMIT + (64 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Value at or below which the given percentage of recordings fall, e.g. percentile(99)
+    public long percentile(double percent) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(valueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift); // always in [HALF, LINEAR_LIMIT)
+        return LINEAR_LIMIT + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    // Highest value that maps to bucket index
+    static long valueOf(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int shift = (index - LINEAR_LIMIT) / HALF + 1;
+        long sub = (index - LINEAR_LIMIT) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.anote2.db;
+
+import model.Note;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Identity map of loaded notes: at most one Note instance per id while anything still uses it.
+// The most recently used notes are held strongly in an LRU; colder notes are only weakly
+// referenced, so they are dropped once no card or task list holds on to them, yet a note
+// still shown on screen keeps its identity even after it falls out of the LRU.
+public class NoteCache {
+    private final int capacity;
+    private final LinkedHashMap<Integer, Note> hot;
+    private final Map<Integer, NoteRef> identities = new HashMap<>();
+    private final ReferenceQueue<Note> cleared = new ReferenceQueue<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public record Stats(int hotSize, int liveSize, int capacity, long hits, long misses, long evictions) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hot / %d live of %d, hit rate %.1f%% (%d hits, %d misses), %d evicted",
+                    hotSize, liveSize, capacity, hitRate() * 100, hits, misses, evictions);
+        }
+    }
+
+    private static class NoteRef extends WeakReference<Note> {
+        final int id;
+
+        NoteRef(Note note, ReferenceQueue<Note> queue) {
+            super(note, queue);
+            this.id = note.getId();
+        }
+    }
+
+    public NoteCache(int capacity) {
+        this.capacity = capacity;
+        // Access order makes iteration order least recently used first
+        this.hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Note> eldest) {
+                if (size() > NoteCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns the cached instance for id, or null; counts as a hit or a miss
+    public synchronized Note get(int id) {
+        Note note = lookup(id);
+        if (note != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return note;
+    }
+
+    // Returns the instance already cached for the note's id if there is one, otherwise caches note.
+    // Callers that just read a row should use the returned instance and drop their own.
+    public synchronized Note intern(Note note) {
+        Note existing = lookup(note.getId());
+        if (existing != null) {
+            return existing;
+        }
+        put(note);
+        return note;
+    }
+
+    public synchronized void put(Note note) {
+        if (note.getId() <= 0) return;
+        expungeCleared();
+        hot.put(note.getId(), note);
+        identities.put(note.getId(), new NoteRef(note, cleared));
+    }
+
+    public synchronized void remove(int id) {
+        hot.remove(id);
+        identities.remove(id);
+    }
+
+    public synchronized void clear() {
+        hot.clear();
+        identities.clear();
+    }
+
+    public synchronized Stats stats() {
+        expungeCleared();
+        return new Stats(hot.size(), identities.size(), capacity, hits, misses, evictions);
+    }
+
+    private Note lookup(int id) {
+        Note note = hot.get(id);
+        if (note != null) return note;
+
+        NoteRef ref = identities.get(id);
+        note = ref != null ? ref.get() : null;
+        if (note != null) {
+            // Still in use somewhere; promote it back into the LRU
+            hot.put(id, note);
+        }
+        return note;
+    }
+
+    private void expungeCleared() {
+        NoteRef ref;
+        while ((ref = (NoteRef) cleared.poll()) != null) {
+            identities.remove(ref.id, ref);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.anote2.db;
+
+import model.Note;
+
+import java.util.Set;
+
+// One change published on the NoteChangeFeed. note is the cached instance and is null for
+// DELETE and RELOAD. fields lists the persisted fields that changed; it is empty when only
+// in-memory state such as the status moved.
+public record NoteChange(Kind kind, int noteId, Note note, Set<Note.Field> fields) {
+    public enum Kind {
+        INSERT,
+        UPDATE,
+        DELETE,
+        // Many rows changed at once (bulk import); listeners should reload instead of patching
+        RELOAD
+    }
+
+    static NoteChange inserted(Note note) {
+        return new NoteChange(Kind.INSERT, note.getId(), note, Set.of(Note.Field.values()));
+    }
+
+    static NoteChange updated(Note note, Set<Note.Field> fields) {
+        return new NoteChange(Kind.UPDATE, note.getId(), note, Set.copyOf(fields));
+    }
+
+    static NoteChange deleted(int noteId) {
+        return new NoteChange(Kind.DELETE, noteId, null, Set.of());
+    }
+
+    static NoteChange reload() {
+        return new NoteChange(Kind.RELOAD, 0, null, Set.of());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.anote2.db;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Fan-out of note changes from the persistence layer, so views can patch the one affected
+// card instead of rebuilding. Inserts and deletes are published once committed; queued updates
+// are published when the write-behind queue accepts them. Listeners run on the publishing
+// thread and must hand off to their own thread.
+public class NoteChangeFeed {
+    private static final List<Consumer<NoteChange>> listeners = new CopyOnWriteArrayList<>();
+
+    // Returns an action that removes the listener again
+    public static Runnable subscribe(Consumer<NoteChange> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    static void publish(NoteChange change) {
+        for (Consumer<NoteChange> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                // One broken listener must not stop the others or fail the write that published
+                e.printStackTrace();
+            }
+        }
+    }
+}
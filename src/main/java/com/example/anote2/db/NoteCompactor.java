@@ -0,0 +1,155 @@
+package com.example.anote2.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Background cleanup for soft deletes. Tombstones older than the retention period are purged in
+// small batches, then free pages go back to the file system with incremental_vacuum. Each step
+// holds the write lock only briefly and runs only after a quiet period, so edits never wait long.
+public class NoteCompactor {
+    // Override with -Danote.db.tombstoneRetentionHours=N
+    private static final long RETENTION_MS = Long.getLong("anote.db.tombstoneRetentionHours", 24) * 60 * 60 * 1000;
+    private static final long REQUIRED_IDLE_MS = 30_000;
+    private static final int PURGE_BATCH_SIZE = 500;
+    private static final int VACUUM_PAGES_PER_STEP = 256;
+    private static final int SEARCH_MERGE_PAGES_PER_STEP = 256;
+
+    public record Result(int purged, int pagesFreed) {}
+
+    public static Result compact() throws SQLException {
+        return compact(REQUIRED_IDLE_MS);
+    }
+
+    // Stops early as soon as writes have happened within requiredIdleMs; the next run resumes
+    static Result compact(long requiredIdleMs) throws SQLException {
+        ConnectionManager connections = Database.connections();
+        if (!isIdle(connections, requiredIdleMs)) return new Result(0, 0);
+
+        long cutoff = System.currentTimeMillis() - RETENTION_MS;
+        int purged = 0;
+        while (isIdle(connections, requiredIdleMs)) {
+            int batch = connections.maintenance(conn -> ConnectionManager.inTransaction(conn, c -> purgeBatch(c, cutoff)));
+            purged += batch;
+            if (batch < PURGE_BATCH_SIZE) break;
+        }
+
+        // Purged notes leave delete markers in the search index until its segments are merged
+        if (purged > 0) {
+            // A negative page count starts a merge even when there are few segments; later steps continue it
+            int pages = -SEARCH_MERGE_PAGES_PER_STEP;
+            while (isIdle(connections, requiredIdleMs) && connections.maintenance(mergeSearchIndexStep(pages))) {
+                pages = SEARCH_MERGE_PAGES_PER_STEP;
+            }
+        }
+
+        // A file from before incremental vacuum is converted once, which also frees every free page
+        if (isIdle(connections, requiredIdleMs) && connections.maintenance(NoteCompactor::autoVacuumMode) != ConnectionManager.AUTO_VACUUM_INCREMENTAL) {
+            connections.maintenance(NoteCompactor::enableIncrementalVacuum);
+            return new Result(purged, 0);
+        }
+
+        int pagesFreed = 0;
+        while (isIdle(connections, requiredIdleMs)) {
+            int freed = connections.maintenance(NoteCompactor::vacuumStep);
+            pagesFreed += freed;
+            if (freed == 0) break;
+        }
+
+        if (purged > 0 || pagesFreed > 0) {
+            System.out.println("Compaction purged " + purged + " deleted notes and freed " + pagesFreed + " pages.");
+        }
+        return new Result(purged, pagesFreed);
+    }
+
+    private static boolean isIdle(ConnectionManager connections, long requiredIdleMs) {
+        return connections.idleMillis() >= requiredIdleMs;
+    }
+
+    // Hard-deletes up to one batch of expired tombstones with their tasks; returns how many
+    private static int purgeBatch(Connection conn, long cutoff) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement select = conn.prepareStatement(
+                "SELECT id FROM notes WHERE deleted_at IS NOT NULL AND deleted_at <= ? LIMIT ?")) {
+            select.setLong(1, cutoff);
+            select.setInt(2, PURGE_BATCH_SIZE);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        if (ids.isEmpty()) return 0;
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        try (PreparedStatement tasks = conn.prepareStatement("DELETE FROM tasks WHERE note_id IN (" + placeholders + ")");
+             PreparedStatement notes = conn.prepareStatement("DELETE FROM notes WHERE id IN (" + placeholders + ")")) {
+            for (int i = 0; i < ids.size(); i++) {
+                tasks.setInt(i + 1, ids.get(i));
+                notes.setInt(i + 1, ids.get(i));
+            }
+            tasks.executeUpdate();
+            notes.executeUpdate();
+        }
+        return ids.size();
+    }
+
+    // One bounded FTS5 merge writing about |pages| pages; the work reports whether anything was merged
+    private static ConnectionManager.SqlWork<Boolean> mergeSearchIndexStep(int pages) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                long before = totalChanges(stmt);
+                stmt.execute("INSERT INTO notes_fts (notes_fts, rank) VALUES ('merge', " + pages + ")");
+                // The command itself counts as one change; FTS5 documents a delta of two or more as work done
+                return totalChanges(stmt) - before >= 2;
+            }
+        };
+    }
+
+    private static long totalChanges(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT total_changes()")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static int autoVacuumMode(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA auto_vacuum")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Rebuilds the file with auto_vacuum=INCREMENTAL. This is a full VACUUM: it holds the write lock
+    // for time proportional to the file size and needs free disk space for a copy of it, which is
+    // why it waits for a quiet period and happens only once per file. WAL mode stays on.
+    private static Void enableIncrementalVacuum(Connection conn) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("VACUUM");
+        }
+        System.out.printf("Switched database to incremental vacuum in %d ms.%n", (System.nanoTime() - start) / 1_000_000);
+        return null;
+    }
+
+    // Releases up to one step of free pages; returns how many were released
+    private static int vacuumStep(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            int before = freelistCount(stmt);
+            if (before == 0) return 0;
+            stmt.execute("PRAGMA incremental_vacuum(" + VACUUM_PAGES_PER_STEP + ")");
+            return before - freelistCount(stmt);
+        }
+    }
+
+    private static int freelistCount(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA freelist_count")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.anote2.db;
+
+import model.Note;
+
+import java.util.List;
+
+// Walks the notes table newest-first one page at a time using keyset pagination on id,
+// so each page costs the same regardless of how deep into the table the cursor is.
+public class NoteCursor {
+    private final NoteFilter filter;
+    private final int pageSize;
+    private int lastId = Integer.MAX_VALUE;
+    private boolean exhausted;
+
+    NoteCursor(NoteFilter filter, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        this.filter = filter != null ? filter : NoteFilter.all();
+        this.pageSize = pageSize;
+    }
+
+    public boolean hasNext() {
+        return !exhausted;
+    }
+
+    // Returns the next page; an empty list means the cursor is exhausted
+    public List<Note> nextPage() {
+        if (exhausted) return List.of();
+
+        List<Note> page = Database.getNotesPage(filter, lastId, pageSize);
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        if (!page.isEmpty()) {
+            lastId = page.getLast().getId();
+        }
+        return page;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.anote2.db;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+// Optional predicates for paged note queries; every criterion left unset matches all notes.
+// They are rendered into the SQL WHERE clause so filtering happens in SQLite, not in memory.
+public class NoteFilter {
+    private String color;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private boolean reminderOnly;
+    private Instant pendingAfter;
+    private Instant passedBy;
+
+    public static NoteFilter all() {
+        return new NoteFilter();
+    }
+
+    public NoteFilter color(String color) {
+        this.color = color;
+        return this;
+    }
+
+    // Inclusive date range on the note's creation date; either end may be null
+    public NoteFilter between(LocalDate fromDate, LocalDate toDate) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        return this;
+    }
+
+    public NoteFilter reminderOnly(boolean reminderOnly) {
+        this.reminderOnly = reminderOnly;
+        return this;
+    }
+
+    // Notes whose reminder can still come due after now: later one-shots and every recurring one
+    public NoteFilter reminderPending(Instant now) {
+        this.pendingAfter = now;
+        return this;
+    }
+
+    // Notes whose reminder was first due by now; recurring ones among them may still be pending
+    public NoteFilter reminderPassed(Instant now) {
+        this.passedBy = now;
+        return this;
+    }
+
+    // Appends " AND ..." conditions to sql and their bind values to params
+    void appendTo(StringBuilder sql, List<Object> params) {
+        // Rows written before AppStyles.hexOf may carry a trailing ';' or another case
+        if (color != null) {
+            sql.append(" AND upper(trim(rtrim(trim(color), ';'))) = ?");
+            params.add(color.trim().toUpperCase(Locale.ROOT));
+        }
+        // created_day is the indexed epoch-day form of the creation date
+        if (fromDate != null) {
+            sql.append(" AND created_day >= ?");
+            params.add(fromDate.toEpochDay());
+        }
+        if (toDate != null) {
+            sql.append(" AND created_day <= ?");
+            params.add(toDate.toEpochDay());
+        }
+        if (reminderOnly) {
+            sql.append(" AND reminder_at IS NOT NULL");
+        }
+        if (pendingAfter != null) {
+            sql.append(" AND reminder_at IS NOT NULL AND (reminder_at > ? OR reminder_rule IS NOT NULL)");
+            params.add(pendingAfter.toEpochMilli());
+        }
+        if (passedBy != null) {
+            sql.append(" AND reminder_at <= ?");
+            params.add(passedBy.toEpochMilli());
+        }
+    }
+}
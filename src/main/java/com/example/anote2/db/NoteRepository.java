@@ -0,0 +1,180 @@
+package com.example.anote2.db;
+
+import javafx.application.Platform;
+import model.Note;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Asynchronous front for Database so UI code never runs JDBC on the FX application thread.
+// Writes run in order on one dedicated thread; reads run on virtual threads.
+// Use onFx(...) to get results back onto the FX thread.
+public class NoteRepository {
+    private static final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "note-db-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService readExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("note-db-reader-", 0).factory());
+    // Backups and compaction get their own low-priority thread so they never delay queued writes
+    private static final ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "note-db-maintenance");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private static final long COMPACTION_INTERVAL_MINUTES = 5;
+    private static boolean compactionScheduled;
+
+    public static CompletableFuture<Void> initialize() {
+        return write(Database::initialize).thenRun(NoteRepository::scheduleCompaction);
+    }
+
+    private static synchronized void scheduleCompaction() {
+        if (compactionScheduled) return;
+        compactionScheduled = true;
+        maintenanceExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                NoteCompactor.compact();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    // Completes with the same note once it has its generated id
+    public static CompletableFuture<Note> insert(Note note) {
+        return CompletableFuture.supplyAsync(() -> {
+            Database.insertNote(note);
+            return note;
+        }, writeExecutor);
+    }
+
+    public static CompletableFuture<Void> update(Note note) {
+        return write(() -> Database.updateNote(note));
+    }
+
+    // Hands the note to the write-behind queue; does no I/O on the calling thread
+    public static void queueUpdate(Note note) {
+        Database.queueUpdate(note);
+    }
+
+    // Soft delete; the note can be brought back with restore until compaction purges it
+    public static CompletableFuture<Void> delete(Note note) {
+        return write(() -> Database.deleteNote(note));
+    }
+
+    // Completes with false if the note was already purged
+    public static CompletableFuture<Boolean> restore(Note note) {
+        return CompletableFuture.supplyAsync(() -> Database.restoreNote(note), writeExecutor);
+    }
+
+    public static CompletableFuture<Void> flush() {
+        return write(Database::flush);
+    }
+
+    public static CompletableFuture<List<Note>> nextPage(NoteCursor cursor) {
+        return read(cursor::nextPage);
+    }
+
+    // Resolves ids to notes; notes already in the cache are returned without a query
+    public static CompletableFuture<List<Note>> find(List<Integer> ids) {
+        return read(() -> Database.getNotes(ids));
+    }
+
+    public static NoteCache.Stats cacheStats() {
+        return Database.cacheStats();
+    }
+
+    public static CompletableFuture<List<Integer>> search(String query, int limit) {
+        return read(() -> Database.searchNotes(query, limit));
+    }
+
+    public static CompletableFuture<List<Integer>> findDueReminders(Instant from, Instant to) {
+        return read(() -> Database.findDueReminders(from, to));
+    }
+
+    // Next due time of every reminder after from, keyed by note id
+    public static CompletableFuture<Map<Integer, Instant>> findUpcomingReminders(Instant from) {
+        return read(() -> Database.findUpcomingReminders(from));
+    }
+
+    public static CompletableFuture<Path> snapshot() {
+        return backup(DatabaseBackup::snapshot);
+    }
+
+    // Completes with null when a recent enough snapshot already exists
+    public static CompletableFuture<Path> snapshotIfOlderThan(Duration maxAge) {
+        return backup(() -> DatabaseBackup.snapshotIfOlderThan(maxAge));
+    }
+
+    // Subscribes listener to the change feed, delivering each change on the FX thread.
+    // Returns an action that unsubscribes.
+    public static Runnable subscribe(Consumer<NoteChange> listener) {
+        return NoteChangeFeed.subscribe(change -> runOnFx(() -> listener.accept(change)));
+    }
+
+    // Runs action on the FX thread with the result; failures are reported instead of swallowed
+    public static <T> void onFx(CompletableFuture<T> future, Consumer<T> action) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                cause.printStackTrace();
+                return;
+            }
+            runOnFx(() -> action.accept(result));
+        });
+    }
+
+    private static void runOnFx(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    // Flushes pending writes and closes the database, waiting briefly for queued work to finish
+    public static void shutdown() {
+        try {
+            write(Database::shutdown).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        writeExecutor.shutdown();
+        readExecutor.shutdown();
+        maintenanceExecutor.shutdownNow();
+    }
+
+    private static CompletableFuture<Void> write(Runnable work) {
+        return CompletableFuture.runAsync(work, writeExecutor);
+    }
+
+    private static CompletableFuture<Path> backup(Callable<Path> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, maintenanceExecutor);
+    }
+
+    private static <T> CompletableFuture<T> read(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, readExecutor);
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.anote2.db;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.Note;
+import model.RecurrenceRule;
+import model.Task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming bulk import and export of notes as JSON lines or CSV.
+// Import reads one record at a time and writes fixed-size chunks, each in its own transaction with
+// reused batched statements; export walks a single cursor. Neither holds the whole notebook in memory.
+public class NoteTransfer {
+    private static final int CHUNK_SIZE = 10_000;
+    private static final String[] CSV_HEADER = {"content", "color", "date", "reminder_date", "reminder_time", "tasks", "reminder_rule"};
+    // Exports from before recurring reminders lack the last column
+    private static final int LEGACY_CSV_FIELDS = CSV_HEADER.length - 1;
+
+    private static final Gson gson = new Gson();
+    private static final Type taskListType = new TypeToken<List<Task>>() {}.getType();
+
+    public enum Format { JSONL, CSV }
+
+    // One note as it appears in a JSON line; ids are not carried over between databases
+    private static class NoteRecord {
+        String content;
+        String color;
+        String date;
+        String reminderDate;
+        String reminderTime;
+        String reminderRule;
+        List<Task> tasks;
+    }
+
+    @FunctionalInterface
+    private interface NoteSource {
+        // Returns the next note, or null at end of input
+        Note next() throws IOException;
+    }
+
+    // Usage: NoteTransfer import|export jsonl|csv <file>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: NoteTransfer import|export jsonl|csv <file>");
+            return;
+        }
+        Format format = Format.valueOf(args[1].toUpperCase());
+        Path file = Path.of(args[2]);
+
+        Database.initialize();
+        long start = System.nanoTime();
+        long count;
+        if (args[0].equalsIgnoreCase("import")) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                count = importNotes(in, format);
+            }
+        } else {
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                count = exportNotes(out, format);
+            }
+        }
+        System.out.printf("%sed %d notes in %d ms.%n", args[0].toLowerCase(), count, (System.nanoTime() - start) / 1_000_000);
+        Database.shutdown();
+    }
+
+    public static long importNotes(Reader in, Format format) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        NoteSource source = format == Format.JSONL ? jsonLinesSource(reader) : csvSource(reader);
+
+        long imported = 0;
+        long start = DatabaseMetrics.start();
+        try {
+            while (true) {
+                int written = Database.connections().transaction(conn -> writeChunk(conn, source));
+                imported += written;
+                if (written < CHUNK_SIZE) break;
+            }
+            DatabaseMetrics.record(DatabaseMetrics.Operation.IMPORT, start, imported);
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.IMPORT, start);
+            throw new IOException("Import failed after " + imported + " notes", e);
+        } finally {
+            // Committed chunks stay even if a later one fails, so views reload either way
+            if (imported > 0) {
+                NoteChangeFeed.publish(NoteChange.reload());
+            }
+        }
+        return imported;
+    }
+
+    // Reads up to CHUNK_SIZE notes from source and inserts them with explicit ids, so task rows can
+    // be batched alongside their notes without a generated-key lookup per row. Ids start past the
+    // AUTOINCREMENT high-water mark, not just past the live rows: an id purged by NoteCompactor may
+    // still name a Quartz job, an undo handle or a cache entry.
+    private static int writeChunk(Connection conn, NoteSource source) throws SQLException {
+        // The per-row search trigger is dropped inside the chunk's transaction and created again
+        // before it commits, so no other writer ever sees it missing
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS notes_fts_insert");
+        }
+
+        long nextId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                     SELECT MAX(COALESCE((SELECT MAX(id) FROM notes), 0),
+                                COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'notes'), 0)) + 1
+                     """)) {
+            nextId = rs.next() ? rs.getLong(1) : 1;
+        }
+
+        int count = 0;
+        try (PreparedStatement insertNote = conn.prepareStatement(
+                     "INSERT INTO notes (content, color, date, reminder_date, reminder_time, reminder_at, reminder_rule, created_day, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement insertTasks = conn.prepareStatement(
+                     "INSERT INTO tasks (note_id, position, description, completed) VALUES (?, ?, ?, ?)")) {
+            while (count < CHUNK_SIZE) {
+                Note note;
+                try {
+                    note = source.next();
+                } catch (IOException e) {
+                    throw new SQLException("Could not read import record", e);
+                }
+                if (note == null) break;
+
+                note.setId((int) nextId++);
+                Database.bindNoteColumns(insertNote, note);
+                insertNote.setLong(8, note.getDate().toEpochDay());
+                insertNote.setLong(9, note.getId());
+                insertNote.addBatch();
+                Database.bindTasks(insertTasks, note.getId(), note.getTasks());
+                count++;
+            }
+            insertNote.executeBatch();
+            insertTasks.executeBatch();
+        }
+        if (count > 0) {
+            indexChunk(conn, nextId - count, nextId - 1);
+            advanceSequence(conn, nextId - 1);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(SchemaMigrations.SEARCH_INSERT_TRIGGER);
+        }
+        return count;
+    }
+
+    // Adds the chunk's notes to the search index with one statement, content and task text
+    // together, instead of a trigger-fired insert per note
+    private static void indexChunk(Connection conn, long firstId, long lastId) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement("""
+                INSERT INTO notes_fts (rowid, content, tasks)
+                SELECT id, content, COALESCE((SELECT group_concat(description, ' ') FROM tasks WHERE note_id = notes.id), '')
+                FROM notes
+                WHERE id BETWEEN ? AND ?
+                """)) {
+            insert.setLong(1, firstId);
+            insert.setLong(2, lastId);
+            insert.executeUpdate();
+        }
+    }
+
+    // Records lastId as used, so neither a later import nor an ordinary insert hands it out again
+    private static void advanceSequence(Connection conn, long lastId) throws SQLException {
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE sqlite_sequence SET seq = MAX(seq, ?) WHERE name = 'notes'")) {
+            update.setLong(1, lastId);
+            if (update.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement insert = conn.prepareStatement("INSERT INTO sqlite_sequence (name, seq) VALUES ('notes', ?)")) {
+            insert.setLong(1, lastId);
+            insert.executeUpdate();
+        }
+    }
+
+    public static long exportNotes(Writer out, Format format) throws IOException {
+        BufferedWriter writer = out instanceof BufferedWriter buffered ? buffered : new BufferedWriter(out);
+        String sql = """
+            SELECT n.id, n.content, n.color, n.date, n.reminder_date, n.reminder_time, n.reminder_rule,
+                   t.description AS task_description, t.completed AS task_completed
+            FROM notes n LEFT JOIN tasks t ON t.note_id = n.id
+            WHERE n.deleted_at IS NULL
+            ORDER BY n.id, t.position
+        """;
+
+        if (format == Format.CSV) {
+            writeCsvRow(writer, CSV_HEADER);
+        }
+
+        long start = DatabaseMetrics.start();
+        try {
+            long exported = Database.connections().read(conn -> {
+                long count = 0;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    // Rows arrive grouped by note; a note is written once its last task row has been read
+                    Note current = null;
+                    while (rs.next()) {
+                        int id = rs.getInt("id");
+                        if (current == null || current.getId() != id) {
+                            if (current != null) {
+                                writeNote(writer, format, current);
+                                count++;
+                            }
+                            current = Database.readNote(rs);
+                            current.setTasks(new ArrayList<>());
+                        }
+                        String description = rs.getString("task_description");
+                        if (description != null) {
+                            current.getTasks().add(new Task(description, rs.getInt("task_completed") != 0));
+                        }
+                    }
+                    if (current != null) {
+                        writeNote(writer, format, current);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    throw new SQLException("Could not write export record", e);
+                }
+                return count;
+            });
+            writer.flush();
+            DatabaseMetrics.record(DatabaseMetrics.Operation.EXPORT, start, exported);
+            return exported;
+        } catch (SQLException e) {
+            DatabaseMetrics.recordError(DatabaseMetrics.Operation.EXPORT, start);
+            throw new IOException("Export failed", e);
+        }
+    }
+
+    private static void writeNote(BufferedWriter writer, Format format, Note note) throws IOException {
+        if (format == Format.JSONL) {
+            NoteRecord record = new NoteRecord();
+            record.content = note.getContent();
+            record.color = note.getColor();
+            record.date = note.getDate().toString();
+            if (note.hasReminder()) {
+                record.reminderDate = note.getReminderDate().toString();
+                record.reminderTime = note.getReminderTime().toString();
+                record.reminderRule = note.getRecurrence() != null ? note.getRecurrence().toString() : null;
+            }
+            record.tasks = note.getTasks();
+            writer.write(gson.toJson(record));
+            writer.newLine();
+        } else {
+            writeCsvRow(writer, new String[] {
+                    note.getContent(),
+                    note.getColor(),
+                    note.getDate().toString(),
+                    note.hasReminder() ? note.getReminderDate().toString() : "",
+                    note.hasReminder() ? note.getReminderTime().toString() : "",
+                    note.getTasks().isEmpty() ? "" : taskJson(note.getTasks()),
+                    note.isRecurring() ? note.getRecurrence().toString() : ""
+            });
+        }
+    }
+
+    private static String taskJson(List<Task> tasks) {
+        String json = gson.toJson(tasks);
+        DatabaseMetrics.recordTaskJson(json);
+        return json;
+    }
+
+    private static Note toNote(String content, String color, String date, String reminderDate, String reminderTime,
+                               String reminderRule, List<Task> tasks) {
+        Note note = new Note(content, color, LocalDate.parse(date));
+        if (reminderDate != null && !reminderDate.isEmpty() && reminderTime != null && !reminderTime.isEmpty()) {
+            note.setReminder(LocalDate.parse(reminderDate), LocalTime.parse(reminderTime));
+            if (reminderRule != null && !reminderRule.isEmpty()) {
+                note.setRecurrence(RecurrenceRule.parse(reminderRule));
+            }
+        }
+        if (tasks != null) {
+            note.setTasks(tasks);
+        }
+        return note;
+    }
+
+    private static NoteSource jsonLinesSource(BufferedReader reader) {
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                NoteRecord record = gson.fromJson(line, NoteRecord.class);
+                return toNote(record.content, record.color, record.date, record.reminderDate, record.reminderTime,
+                        record.reminderRule, record.tasks);
+            }
+            return null;
+        };
+    }
+
+    private static NoteSource csvSource(BufferedReader reader) throws IOException {
+        List<String> header = readCsvRow(reader);
+        List<String> expected = List.of(CSV_HEADER);
+        if (header != null && !header.equals(expected) && !header.equals(expected.subList(0, LEGACY_CSV_FIELDS))) {
+            throw new IOException("Unexpected CSV header: " + header);
+        }
+        int fieldCount = header != null ? header.size() : CSV_HEADER.length;
+        return () -> {
+            List<String> row = readCsvRow(reader);
+            if (row == null) return null;
+            if (row.size() != fieldCount) {
+                throw new IOException("Expected " + fieldCount + " CSV fields but got " + row.size());
+            }
+            String tasksJson = row.get(5);
+            List<Task> tasks = null;
+            if (!tasksJson.isEmpty()) {
+                DatabaseMetrics.recordTaskJson(tasksJson);
+                tasks = gson.fromJson(tasksJson, taskListType);
+            }
+            String rule = fieldCount > LEGACY_CSV_FIELDS ? row.get(6) : null;
+            return toNote(row.get(0), row.get(1), row.get(2), row.get(3), row.get(4), rule, tasks);
+        };
+    }
+
+    static void writeCsvRow(BufferedWriter writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            String field = fields[i] != null ? fields[i] : "";
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // Reads one RFC 4180 record, which may span several lines inside quotes; null at end of input
+    static List<String> readCsvRow(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') reader.reset();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.anote2.db;
+
+import org.quartz.utils.ConnectionProvider;
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+// Gives Quartz's JDBC job store connections to the notes database. Quartz runs its own
+// transactions and closes every connection it takes, so each call opens a fresh one instead of
+// borrowing from ConnectionManager; SQLite connections are cheap and WAL plus busy_timeout keep
+// them from stalling the app's writer.
+public class QuartzConnectionProvider implements ConnectionProvider {
+    private final String url;
+    private final Properties properties;
+
+    public QuartzConnectionProvider(DatabaseConfig config) {
+        this.url = config.url();
+        // Quartz reads before it writes in the same transaction. A deferred transaction would fail
+        // with SQLITE_BUSY_SNAPSHOT if the app wrote in between, so take the write lock up front.
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        this.properties = sqliteConfig.toProperties();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, properties);
+        ConnectionManager.configure(conn);
+        return conn;
+    }
+
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.anote2.db;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.Task;
+
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+// Ordered schema migrations keyed on SQLite's PRAGMA user_version. Each migration runs in its own
+// transaction together with the version bump, so a crash leaves the database at a known version.
+// Steps are written to be idempotent because databases created before this runner existed are at
+// version 0 but may already contain some of the objects.
+class SchemaMigrations {
+    // Rows per statement when backfilling columns, keeping memory flat on large databases
+    private static final int CHUNK_SIZE = 10_000;
+
+    private static final Gson gson = new Gson();
+    private static final Type taskListType = new TypeToken<List<Task>>() {}.getType();
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    record Migration(int version, String description, Step step) {}
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create notes table", SchemaMigrations::createNotesTable),
+            new Migration(2, "move task JSON into tasks table", SchemaMigrations::createTasksTable),
+            new Migration(3, "add indexed reminder_at column", SchemaMigrations::addReminderEpochColumn),
+            new Migration(4, "add full-text search index", SchemaMigrations::createSearchIndex),
+            new Migration(5, "add indexed created_day column", SchemaMigrations::addCreatedDayColumn),
+            new Migration(6, "add deleted_at tombstone column", SchemaMigrations::addTombstoneColumn),
+            new Migration(7, "create Quartz job store tables", SchemaMigrations::createQuartzTables),
+            new Migration(8, "add reminder_rule column", SchemaMigrations::addReminderRuleColumn),
+            new Migration(9, "drop per-row task search triggers", SchemaMigrations::dropTaskSearchTriggers)
+    );
+
+    static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    static void migrate(ConnectionManager connections) throws SQLException {
+        int current = connections.write(SchemaMigrations::userVersion);
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) continue;
+
+            long start = System.nanoTime();
+            connections.transaction(conn -> {
+                migration.step().apply(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA user_version = " + migration.version());
+                }
+                return null;
+            });
+            System.out.printf("Applied migration %d (%s) in %d ms.%n",
+                    migration.version(), migration.description(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    static int userVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void createNotesTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS notes (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    content TEXT NOT NULL,
+                    color TEXT NOT NULL,
+                    date TEXT NOT NULL,
+                    tasks TEXT,
+                    reminder_date TEXT,
+                    reminder_time TEXT
+                );
+            """);
+        }
+    }
+
+    // The composite primary key doubles as the note_id index for per-note task lookups
+    private static void createTasksTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS tasks (
+                    note_id INTEGER NOT NULL,
+                    position INTEGER NOT NULL,
+                    description TEXT NOT NULL,
+                    completed INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (note_id, position)
+                ) WITHOUT ROWID;
+            """);
+        }
+
+        // Stream the JSON rows and insert in fixed-size batches rather than loading them all
+        int migrated = 0;
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id, tasks FROM notes WHERE tasks IS NOT NULL");
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT OR IGNORE INTO tasks (note_id, position, description, completed) VALUES (?, ?, ?, ?)")) {
+            while (rs.next()) {
+                String json = rs.getString("tasks");
+                DatabaseMetrics.recordTaskJson(json);
+                List<Task> tasks = gson.fromJson(json, taskListType);
+                if (tasks == null) continue;
+                Database.bindTasks(insert, rs.getInt("id"), tasks);
+                if (++migrated % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement clear = conn.createStatement()) {
+            clear.executeUpdate("UPDATE notes SET tasks = NULL WHERE tasks IS NOT NULL");
+        }
+
+        if (migrated > 0) {
+            System.out.println("Migrated task lists of " + migrated + " notes to the tasks table.");
+        }
+    }
+
+    // reminder_at holds the reminder as epoch millis. The 'utc' modifier reads the stored text as
+    // local time, matching how the app builds reminders from LocalDate and LocalTime.
+    private static void addReminderEpochColumn(Connection conn) throws SQLException {
+        if (!hasColumn(conn, "notes", "reminder_at")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE notes ADD COLUMN reminder_at INTEGER");
+            }
+            updateInChunks(conn, """
+                UPDATE notes
+                SET reminder_at = CAST(strftime('%s', reminder_date || ' ' || reminder_time, 'utc') AS INTEGER) * 1000
+                WHERE id > ? AND id <= ? AND reminder_date IS NOT NULL AND reminder_time IS NOT NULL
+            """);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notes_reminder_at ON notes(reminder_at) WHERE reminder_at IS NOT NULL");
+        }
+    }
+
+    // Also used by NoteTransfer, which drops it for the length of an import chunk and indexes the
+    // chunk in one statement instead
+    static final String SEARCH_INSERT_TRIGGER = """
+            CREATE TRIGGER IF NOT EXISTS notes_fts_insert AFTER INSERT ON notes BEGIN
+                INSERT INTO notes_fts (rowid, content, tasks) VALUES (new.id, new.content, '');
+            END;
+            """;
+
+    // FTS5 index over note content and task descriptions. Triggers keep the content column in sync;
+    // the tasks column is refreshed by the code that writes tasks, once per note rather than per row.
+    private static void createSearchIndex(Connection conn) throws SQLException {
+        String[] triggers = {
+            SEARCH_INSERT_TRIGGER,
+            """
+            CREATE TRIGGER IF NOT EXISTS notes_fts_update AFTER UPDATE OF content ON notes
+            WHEN new.content IS NOT old.content BEGIN
+                UPDATE notes_fts SET content = new.content WHERE rowid = new.id;
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS notes_fts_delete AFTER DELETE ON notes BEGIN
+                DELETE FROM notes_fts WHERE rowid = old.id;
+            END;
+            """
+        };
+
+        try (Statement stmt = conn.createStatement()) {
+            boolean exists;
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'notes_fts'")) {
+                exists = rs.next();
+            }
+
+            stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS notes_fts USING fts5(content, tasks, tokenize = 'unicode61 remove_diacritics 2')");
+            for (String trigger : triggers) {
+                stmt.execute(trigger);
+            }
+
+            if (exists) return;
+        }
+
+        // First run on an existing database: index everything already stored
+        updateInChunks(conn, """
+            INSERT INTO notes_fts (rowid, content, tasks)
+            SELECT id, content, COALESCE((SELECT group_concat(description, ' ') FROM tasks WHERE note_id = notes.id), '')
+            FROM notes
+            WHERE id > ? AND id <= ?
+        """);
+    }
+
+    // created_day is the creation date as days since the epoch, so date filters use an integer index
+    private static void addCreatedDayColumn(Connection conn) throws SQLException {
+        if (!hasColumn(conn, "notes", "created_day")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE notes ADD COLUMN created_day INTEGER");
+            }
+            updateInChunks(conn, """
+                UPDATE notes
+                SET created_day = CAST(julianday(date) - 2440587.5 AS INTEGER)
+                WHERE id > ? AND id <= ?
+            """);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notes_created_day ON notes(created_day)");
+        }
+    }
+
+    // deleted_at marks soft-deleted notes with the deletion time in epoch millis. Live-note indexes
+    // become partial so tombstones cost nothing in them, and tombstones leave the search index
+    // when deleted and come back when restored.
+    private static void addTombstoneColumn(Connection conn) throws SQLException {
+        if (!hasColumn(conn, "notes", "deleted_at")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE notes ADD COLUMN deleted_at INTEGER");
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX IF EXISTS idx_notes_reminder_at");
+            stmt.execute("CREATE INDEX idx_notes_reminder_at ON notes(reminder_at) WHERE reminder_at IS NOT NULL AND deleted_at IS NULL");
+            stmt.execute("DROP INDEX IF EXISTS idx_notes_created_day");
+            stmt.execute("CREATE INDEX idx_notes_created_day ON notes(created_day) WHERE deleted_at IS NULL");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notes_deleted_at ON notes(deleted_at) WHERE deleted_at IS NOT NULL");
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS notes_fts_soft_delete AFTER UPDATE OF deleted_at ON notes
+                WHEN new.deleted_at IS NOT NULL AND old.deleted_at IS NULL BEGIN
+                    DELETE FROM notes_fts WHERE rowid = new.id;
+                END;
+            """);
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS notes_fts_restore AFTER UPDATE OF deleted_at ON notes
+                WHEN new.deleted_at IS NULL AND old.deleted_at IS NOT NULL BEGIN
+                    INSERT INTO notes_fts (rowid, content, tasks)
+                    VALUES (new.id, new.content, COALESCE((SELECT group_concat(description, ' ') FROM tasks WHERE note_id = new.id), ''));
+                END;
+            """);
+        }
+    }
+
+    // Quartz's standard JDBC job store schema (from its tables_h2.sql), with the constraints written
+    // inline because SQLite cannot add them with ALTER TABLE. Reminder jobs live next to the notes
+    // so a backup or restore carries both.
+    private static void createQuartzTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_JOB_DETAILS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    JOB_NAME VARCHAR(200) NOT NULL,
+                    JOB_GROUP VARCHAR(200) NOT NULL,
+                    DESCRIPTION VARCHAR(250),
+                    JOB_CLASS_NAME VARCHAR(250) NOT NULL,
+                    IS_DURABLE BOOLEAN NOT NULL,
+                    IS_NONCONCURRENT BOOLEAN NOT NULL,
+                    IS_UPDATE_DATA BOOLEAN NOT NULL,
+                    REQUESTS_RECOVERY BOOLEAN NOT NULL,
+                    JOB_DATA BLOB,
+                    PRIMARY KEY (SCHED_NAME, JOB_NAME, JOB_GROUP)
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_TRIGGERS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    TRIGGER_NAME VARCHAR(200) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    JOB_NAME VARCHAR(200) NOT NULL,
+                    JOB_GROUP VARCHAR(200) NOT NULL,
+                    DESCRIPTION VARCHAR(250),
+                    NEXT_FIRE_TIME BIGINT,
+                    PREV_FIRE_TIME BIGINT,
+                    PRIORITY INTEGER,
+                    TRIGGER_STATE VARCHAR(16) NOT NULL,
+                    TRIGGER_TYPE VARCHAR(8) NOT NULL,
+                    START_TIME BIGINT NOT NULL,
+                    END_TIME BIGINT,
+                    CALENDAR_NAME VARCHAR(200),
+                    MISFIRE_INSTR SMALLINT,
+                    JOB_DATA BLOB,
+                    PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP),
+                    FOREIGN KEY (SCHED_NAME, JOB_NAME, JOB_GROUP) REFERENCES QRTZ_JOB_DETAILS (SCHED_NAME, JOB_NAME, JOB_GROUP)
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_SIMPLE_TRIGGERS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    TRIGGER_NAME VARCHAR(200) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    REPEAT_COUNT BIGINT NOT NULL,
+                    REPEAT_INTERVAL BIGINT NOT NULL,
+                    TIMES_TRIGGERED BIGINT NOT NULL,
+                    PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP),
+                    FOREIGN KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) REFERENCES QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) ON DELETE CASCADE
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_CRON_TRIGGERS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    TRIGGER_NAME VARCHAR(200) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    CRON_EXPRESSION VARCHAR(120) NOT NULL,
+                    TIME_ZONE_ID VARCHAR(80),
+                    PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP),
+                    FOREIGN KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) REFERENCES QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) ON DELETE CASCADE
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_SIMPROP_TRIGGERS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    TRIGGER_NAME VARCHAR(200) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    STR_PROP_1 VARCHAR(512),
+                    STR_PROP_2 VARCHAR(512),
+                    STR_PROP_3 VARCHAR(512),
+                    INT_PROP_1 INTEGER,
+                    INT_PROP_2 INTEGER,
+                    LONG_PROP_1 BIGINT,
+                    LONG_PROP_2 BIGINT,
+                    DEC_PROP_1 NUMERIC(13,4),
+                    DEC_PROP_2 NUMERIC(13,4),
+                    BOOL_PROP_1 BOOLEAN,
+                    BOOL_PROP_2 BOOLEAN,
+                    PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP),
+                    FOREIGN KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) REFERENCES QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) ON DELETE CASCADE
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_BLOB_TRIGGERS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    TRIGGER_NAME VARCHAR(200) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    BLOB_DATA BLOB,
+                    PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP),
+                    FOREIGN KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) REFERENCES QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP) ON DELETE CASCADE
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_CALENDARS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    CALENDAR_NAME VARCHAR(200) NOT NULL,
+                    CALENDAR BLOB NOT NULL,
+                    PRIMARY KEY (SCHED_NAME, CALENDAR_NAME)
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_PAUSED_TRIGGER_GRPS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    PRIMARY KEY (SCHED_NAME, TRIGGER_GROUP)
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_FIRED_TRIGGERS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    ENTRY_ID VARCHAR(95) NOT NULL,
+                    TRIGGER_NAME VARCHAR(200) NOT NULL,
+                    TRIGGER_GROUP VARCHAR(200) NOT NULL,
+                    INSTANCE_NAME VARCHAR(200) NOT NULL,
+                    FIRED_TIME BIGINT NOT NULL,
+                    SCHED_TIME BIGINT NOT NULL,
+                    PRIORITY INTEGER NOT NULL,
+                    STATE VARCHAR(16) NOT NULL,
+                    JOB_NAME VARCHAR(200),
+                    JOB_GROUP VARCHAR(200),
+                    IS_NONCONCURRENT BOOLEAN,
+                    REQUESTS_RECOVERY BOOLEAN,
+                    PRIMARY KEY (SCHED_NAME, ENTRY_ID)
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_SCHEDULER_STATE (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    INSTANCE_NAME VARCHAR(200) NOT NULL,
+                    LAST_CHECKIN_TIME BIGINT NOT NULL,
+                    CHECKIN_INTERVAL BIGINT NOT NULL,
+                    PRIMARY KEY (SCHED_NAME, INSTANCE_NAME)
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS QRTZ_LOCKS (
+                    SCHED_NAME VARCHAR(120) NOT NULL,
+                    LOCK_NAME VARCHAR(40) NOT NULL,
+                    PRIMARY KEY (SCHED_NAME, LOCK_NAME)
+                )
+            """);
+            // The acquire loop scans by state and next fire time
+            stmt.execute("CREATE INDEX IF NOT EXISTS IDX_QRTZ_T_NFT_ST ON QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_STATE, NEXT_FIRE_TIME)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS IDX_QRTZ_T_NFT_MISFIRE ON QRTZ_TRIGGERS (SCHED_NAME, MISFIRE_INSTR, NEXT_FIRE_TIME)");
+        }
+    }
+
+    // reminder_rule holds an RRULE for recurring reminders; reminder_at stays the first occurrence
+    private static void addReminderRuleColumn(Connection conn) throws SQLException {
+        if (!hasColumn(conn, "notes", "reminder_rule")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE notes ADD COLUMN reminder_rule TEXT");
+            }
+        }
+    }
+
+    // Each task row used to rewrite its note's whole search document, so replacing a list of n
+    // tasks cost O(n^2); Database now refreshes the document once per task write instead
+    private static void dropTaskSearchTriggers(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS tasks_fts_insert");
+            stmt.execute("DROP TRIGGER IF EXISTS tasks_fts_update");
+            stmt.execute("DROP TRIGGER IF EXISTS tasks_fts_delete");
+        }
+    }
+
+    static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Runs sql, which must take a (lowId, highId] range as its two parameters, over consecutive
+    // id ranges so each statement touches a bounded number of rows
+    private static void updateInChunks(Connection conn, String sql) throws SQLException {
+        long maxId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM notes")) {
+            maxId = rs.next() ? rs.getLong(1) : 0;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (long low = 0; low < maxId; low += CHUNK_SIZE) {
+                pstmt.setLong(1, low);
+                pstmt.setLong(2, Math.min(low + CHUNK_SIZE, maxId));
+                pstmt.executeUpdate();
+            }
+        }
+    }
+}
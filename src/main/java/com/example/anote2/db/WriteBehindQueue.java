@@ -0,0 +1,122 @@
+package com.example.anote2.db;
+
+import model.Note;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Collects note updates and writes them in batches on a background thread.
+// Repeated updates to the same note id between flushes collapse into one row write.
+public class WriteBehindQueue {
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long DEFAULT_FLUSH_DELAY_MS = 250;
+
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<Note> notes) throws SQLException;
+    }
+
+    private final BatchWriter writer;
+    private final int batchSize;
+    private final long flushDelayMs;
+    private final Map<Integer, Note> pending = new LinkedHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private ScheduledFuture<?> scheduledFlush;
+
+    public WriteBehindQueue(BatchWriter writer) {
+        this(writer, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_DELAY_MS);
+    }
+
+    public WriteBehindQueue(BatchWriter writer, int batchSize, long flushDelayMs) {
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.flushDelayMs = flushDelayMs;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "note-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void enqueue(Note note) {
+        synchronized (this) {
+            pending.put(note.getId(), note);
+
+            if (pending.size() >= batchSize) {
+                cancelScheduledFlush();
+                flusher.execute(this::drain);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = flusher.schedule(this::drain, flushDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Drops a queued update, e.g. when the note is deleted before the flush runs
+    public synchronized void discard(int noteId) {
+        pending.remove(noteId);
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    // Blocks until everything queued before this call has been written
+    public void flush() {
+        if (flusher.isShutdown()) {
+            drain();
+            return;
+        }
+        try {
+            flusher.submit(this::drain).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void shutdown() {
+        flush();
+        flusher.shutdown();
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    private void drain() {
+        List<Note> batch;
+        synchronized (this) {
+            cancelScheduledFlush();
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        try {
+            writer.write(batch);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // Put failed notes back unless a newer update for the same id arrived meanwhile
+            synchronized (this) {
+                for (Note note : batch) {
+                    pending.putIfAbsent(note.getId(), note);
+                }
+                if (scheduledFlush == null && !flusher.isShutdown()) {
+                    scheduledFlush = flusher.schedule(this::drain, flushDelayMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+}
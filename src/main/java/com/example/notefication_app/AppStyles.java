@@ -0,0 +1,45 @@
+package com.example.notefication_app;
+
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+// The shared stylesheet and the note palette. Cards, dialogs and popups get style classes and
+// pseudo-classes rather than inline style strings, so creating one costs no CSS parsing.
+public class AppStyles {
+    public static final String STYLESHEET = Objects.requireNonNull(AppStyles.class.getResource("styles.css")).toExternalForm();
+
+    private static final String NOTE_COLOR = "note-color";
+    // The color picker's colors; styles.css has a matching rule for each
+    private static final Map<String, PseudoClass> PALETTE = Map.of(
+            "#FFD56A", PseudoClass.getPseudoClass("yellow"),
+            "#F28B6C", PseudoClass.getPseudoClass("red"),
+            "#B199FF", PseudoClass.getPseudoClass("purple"),
+            "#00CFFF", PseudoClass.getPseudoClass("cyan"),
+            "#E5FF99", PseudoClass.getPseudoClass("green")
+    );
+
+    // Notes saved by older versions carry the rest of the picker's style, e.g. "#FFD56A; -fx-background-radius"
+    public static String hexOf(String color) {
+        if (color == null) return "";
+        int end = color.indexOf(';');
+        return (end >= 0 ? color.substring(0, end) : color).trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Gives node the note's background color
+    public static void applyNoteColor(Node node, String color) {
+        if (!node.getStyleClass().contains(NOTE_COLOR)) {
+            node.getStyleClass().add(NOTE_COLOR);
+        }
+        String hex = hexOf(color);
+        PseudoClass match = PALETTE.get(hex);
+        for (PseudoClass pseudoClass : PALETTE.values()) {
+            node.pseudoClassStateChanged(pseudoClass, pseudoClass == match);
+        }
+        // Colors outside the palette, e.g. from an import, still need an inline style
+        node.setStyle(match == null && !hex.isEmpty() ? "-fx-background-color: " + hex + ";" : "");
+    }
+}
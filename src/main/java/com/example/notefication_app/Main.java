@@ -1,5 +1,7 @@
 package com.example.notefication_app;
 
+import com.example.anote2.db.NoteRepository;
+import controller.MainController;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
@@ -11,6 +13,8 @@ import java.io.IOException;
 
 @SuppressWarnings("CallToPrintStackTrace")
 public class Main extends Application {
+    private MainController mainController;
+
     @Override
     public void start(Stage stage) throws IOException {
         // Load the loading screen
@@ -38,6 +42,8 @@ public class Main extends Application {
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("Main.fxml"));
             Scene scene = new Scene(fxmlLoader.load());
+            scene.getStylesheets().add(AppStyles.STYLESHEET);
+            mainController = fxmlLoader.getController();
             stage.setTitle("NOTEFICATION");
             stage.setScene(scene);
             stage.setMaximized(true); // Start in maximized mode
@@ -47,6 +53,15 @@ public class Main extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        if (mainController != null) {
+            mainController.saveApplicationState();
+            mainController.shutdownScheduler();
+        }
+        NoteRepository.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
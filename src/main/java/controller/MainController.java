@@ -1,6 +1,11 @@
 package controller;
 
 import com.example.anote2.db.Database;
+import com.example.anote2.db.NoteChange;
+import com.example.anote2.db.NoteCursor;
+import com.example.anote2.db.NoteFilter;
+import com.example.anote2.db.NoteRepository;
+import com.example.notefication_app.AppStyles;
 import javafx.animation.*;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -25,7 +30,12 @@ import javafx.stage.Screen;
 import javafx.stage.Window;
 import javafx.util.Duration;
 import model.Note;
-import service.NotificationService;
+import model.RecurrenceRule;
+import org.controlsfx.control.Notifications;
+import org.controlsfx.control.action.Action;
+import service.NotificationDispatcher;
+import service.NotificationSink;
+import service.ReminderEngine;
 
 import java.io.File;
 import java.net.URL;
@@ -33,9 +43,7 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 @SuppressWarnings("ALL")
@@ -75,6 +83,7 @@ public class MainController implements Initializable {
 
     private String selectedColor = null;
     private final List<Node> allNotes = new ArrayList<>();
+    private final Map<Integer, VBox> cardsById = new HashMap<>();
     private static final Map<String, String> colorMap = Map.of(
             "Yellow", "#FFD56A",
             "Red", "#F28B6C",
@@ -82,19 +91,41 @@ public class MainController implements Initializable {
             "Cyan", "#00CFFF",
             "Green", "#E5FF99"
     );
-    private ScheduledExecutorService scheduler;
+    private ReminderEngine reminderEngine;
     private final ObservableList<ReminderItem> reminders = FXCollections.observableArrayList();
     private final Map<Note, Boolean> notificationShown = new HashMap<>();
 
     private int notificationCount = 0;
+    // One player for the alarm, rewound for each batch of reminders
+    private MediaPlayer alarmPlayer;
+    private static final int NOTE_PAGE_SIZE = 100;
+    private static final int UNDO_DELETE_SECONDS = 8;
+    private static final int SEARCH_RESULT_LIMIT = 500;
+    private int loadGeneration = 0;
+    // Notes not yet shown as cards; pages are read only as the user scrolls toward them
+    private NoteCursor noteCursor;
+    private boolean pageLoading;
+    // Id of the last note the cursor returned; notes above it have all been read
+    private int oldestLoadedId = Integer.MAX_VALUE;
+    // Cards showing the edit box; change events leave them alone until the edit is saved
+    private final Set<VBox> editing = new HashSet<>();
+    // Fetch the next page once the view is scrolled this far down
+    private static final double LOAD_MORE_AT = 0.9;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        Database.initialize();
-        Database.testInsertNote();
-        loadNotesFromDatabase();
-
-        scheduler = Executors.newScheduledThreadPool(1);
+        NoteRepository.subscribe(this::onNoteChange);
+        NoteRepository.onFx(NoteRepository.initialize(), _ -> {
+            loadNotesFromDatabase();
+            // Starting the engine reads the database, so keep it off the FX thread
+            NoteRepository.onFx(CompletableFuture.supplyAsync(() -> {
+                        NotificationDispatcher.configure();
+                        return ReminderEngine.start(this::onRemindersDue);
+                    }),
+                    engine -> reminderEngine = engine);
+            // Daily snapshot in the background; the backup does not block edits
+            NoteRepository.onFx(NoteRepository.snapshotIfOlderThan(java.time.Duration.ofDays(1)), _ -> {});
+        });
 
         addNoteButton.setOnAction(_ -> toggleColorPicker());
         backToTopButton.setOnAction(_ -> scrollToTop());
@@ -108,50 +139,102 @@ public class MainController implements Initializable {
         setupScrollPane();
         setupSearchField();
         setupFilters();
-        startReminderCheckScheduler();
     }
 
-    private void startReminderCheckScheduler() {
-        scheduler.scheduleAtFixedRate(this::checkReminders, 0, 1, TimeUnit.MINUTES);
-    }
-
-    private void checkReminders() {
+    // Runs on the reminder engine's thread. The notes come from the repository's identity map, so
+    // they are the same instances the cards hold.
+    private void onRemindersDue(List<Note> dueNotes) {
+        // Queued per sink, so a slow sink holds up neither this thread nor the popup
+        Instant firedAt = Instant.now();
+        for (Note note : dueNotes) {
+            NotificationDispatcher.dispatch(new NotificationSink.Notification(note.getId(), "Notification", note.getContent(), firedAt));
+        }
         Platform.runLater(() -> {
-            for (Node node : allNotes) {
-                if (node instanceof VBox noteBox) {
-                    Note note = (Note) noteBox.getUserData();
-                    if (note != null && note.hasReminder() && note.isReminderDone()) {
-                        LocalDateTime reminderDateTime = LocalDateTime.of(note.getReminderDate(), note.getReminderTime());
-                        if (reminderDateTime.isBefore(LocalDateTime.now())) {
-                            note.setReminderDone(true);
-                            note.setStatus("Completed");
-                            Database.updateNote(note);
-                            updateNoteInUI(note, noteBox);
-                        }
-                    }
+            if (!dueNotes.isEmpty()) {
+                playSound();
+            }
+            for (Note note : dueNotes) {
+                notificationCount++;
+                if (!note.isRecurring()) {
+                    note.setReminderDone(true);
                 }
+                NoteRepository.queueUpdate(note); // the change feed patches the card
             }
+            updateReminderCountLabel(notificationCount);
         });
     }
 
+    // Applies a change from the persistence layer to the one card it affects
+    private void onNoteChange(NoteChange change) {
+        VBox noteBox = cardsById.get(change.noteId());
+        switch (change.kind()) {
+            case INSERT -> {
+                if (noteBox == null) addNoteToUI(change.note());
+            }
+            case UPDATE -> {
+                if (noteBox != null) {
+                    updateNoteInUI(change.note(), noteBox);
+                } else if (change.note() != null) {
+                    addIfNowMatching(change.note());
+                }
+            }
+            case DELETE -> {
+                if (noteBox != null) removeNoteFromUI(noteBox);
+            }
+            case RELOAD -> loadNotesFromDatabase();
+        }
+    }
+
+    // Rebuilds the card's contents in place and re-checks the filters, which the change may have
+    // flipped either way. A card being edited is skipped: it renders the same note instance, with
+    // this change in it, once the edit is saved.
     private void updateNoteInUI(Note note, VBox noteBox) {
-        notesContainer.getChildren().remove(noteBox);
-        allNotes.remove(noteBox);
-        addNoteToUI(note);
+        if (editing.contains(noteBox)) return;
+        renderNoteCard(noteBox, note);
+        if (!searchField.getText().isBlank()) return; // search results ignore the filters
+
+        boolean shown = notesContainer.getChildren().contains(noteBox);
+        boolean matches = matchesFilters(noteBox);
+        if (shown && !matches) {
+            notesContainer.getChildren().remove(noteBox);
+        } else if (!shown && matches && allNotes.contains(noteBox)) {
+            insertInOrder(notesContainer.getChildren(), noteBox);
+        }
     }
 
-    private void scheduleNotification(LocalDateTime targetDateTime, Note note) {
-        long delay = Date.from(targetDateTime.atZone(ZoneId.systemDefault()).toInstant()).getTime() - System.currentTimeMillis();
+    // A note the SQL filter skipped when its page was read gets a card once it matches, e.g. when
+    // its reminder fires while "Completed" is selected
+    private void addIfNowMatching(Note note) {
+        if (!searchField.getText().isBlank() || !isLoaded(note.getId()) || !matchesFilters(note)) return;
+        VBox noteBox = cardFor(note);
+        insertInOrder(allNotes, noteBox);
+        insertInOrder(notesContainer.getChildren(), noteBox);
+    }
 
-        if (delay > 0) {
-            scheduler.schedule(() -> {
-                Platform.runLater(() -> {
-                    NotificationService.showNotification("Notification", "Time to check your note!");
-                    playSound();
-                    note.setStatus("Completed");
-                    Database.updateNote(note);
-                });
-            }, delay, TimeUnit.MILLISECONDS);
+    // Whether the cursor has already read past id; a note below that arrives with a later page
+    private boolean isLoaded(int id) {
+        return noteCursor == null || !noteCursor.hasNext() || id > oldestLoadedId;
+    }
+
+    // Inserts noteBox before the first card of an older note, keeping the newest-first order.
+    // Nodes without a note, like an open draft card, are passed over.
+    private static void insertInOrder(List<Node> nodes, VBox noteBox) {
+        int id = ((Note) noteBox.getUserData()).getId();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i).getUserData() instanceof Note other && other.getId() < id) {
+                nodes.add(i, noteBox);
+                return;
+            }
+        }
+        nodes.add(noteBox);
+    }
+
+    private void removeNoteFromUI(VBox noteBox) {
+        editing.remove(noteBox);
+        notesContainer.getChildren().remove(noteBox);
+        allNotes.remove(noteBox);
+        if (noteBox.getUserData() instanceof Note note) {
+            cardsById.remove(note.getId(), noteBox);
         }
     }
 
@@ -177,14 +260,18 @@ public class MainController implements Initializable {
 
     private void playSound() {
         try {
-            String soundFile = "src/main/resources/com/example/notefication_app/sound/alarm.wav";
-            Media sound = new Media(new File(soundFile).toURI().toString());
-            MediaPlayer mediaPlayer = new MediaPlayer(sound);
-            mediaPlayer.setOnError(() -> System.err.println("MediaPlayer error: " + mediaPlayer.getError().getMessage()));
-            mediaPlayer.play();
-
-            notificationCount++;
-            updateReminderCountLabel(notificationCount);
+            if (alarmPlayer == null) {
+                String soundFile = "src/main/resources/com/example/notefication_app/sound/alarm.wav";
+                Media sound = new Media(new File(soundFile).toURI().toString());
+                MediaPlayer mediaPlayer = new MediaPlayer(sound);
+                mediaPlayer.setOnError(() -> {
+                    System.err.println("MediaPlayer error: " + mediaPlayer.getError().getMessage());
+                    alarmPlayer = null; // a failed player cannot be replayed
+                });
+                alarmPlayer = mediaPlayer;
+            }
+            alarmPlayer.stop();
+            alarmPlayer.play();
         } catch (Exception e) {
             System.err.println("Error playing sound: " + e.getMessage());
             e.printStackTrace();
@@ -192,9 +279,10 @@ public class MainController implements Initializable {
     }
 
     public void shutdownScheduler() {
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
+        if (reminderEngine != null) {
+            reminderEngine.stop();
         }
+        NotificationDispatcher.shutdown();
     }
 
     private void scrollToTop() {
@@ -206,7 +294,12 @@ public class MainController implements Initializable {
     }
 
     private void setupScrollPane() {
+        // Filters or a short first page can leave nothing to scroll, so a height change checks too
+        notesContainer.heightProperty().addListener(_ -> loadMoreIfNeeded());
         notesScrollPane.vvalueProperty().addListener((_, _, newVal) -> {
+            if (newVal.doubleValue() >= LOAD_MORE_AT) {
+                loadNextPage();
+            }
             boolean show = newVal.doubleValue() > 0.1;
             if (show && !backToTopButton.isVisible()) {
                 backToTopButton.setVisible(true);
@@ -238,20 +331,18 @@ public class MainController implements Initializable {
             notesContainer.getChildren().clear();
 
             if (query.isEmpty()) {
-                applyFilters();
+                dropSearchCards();
+                showLoadedCards();
             } else {
-                for (Node note : allNotes) {
-                    if (note instanceof VBox) {
-                        for (Node child : ((VBox) note).getChildren()) {
-                            if (child instanceof Text textNode) {
-                                if (textNode.getText().toLowerCase().contains(query)) {
-                                    notesContainer.getChildren().add(note);
-                                    break;
-                                }
-                            }
-                        }
+                // Ranked ids come from the full-text index. Hits past the loaded pages are read by id
+                // in one query, so every match shows up, not just the ones already scrolled to.
+                NoteRepository.onFx(NoteRepository.search(query, SEARCH_RESULT_LIMIT).thenCompose(NoteRepository::find), notes -> {
+                    if (!query.equals(searchField.getText().toLowerCase().trim())) return; // superseded by a newer keystroke
+                    notesContainer.getChildren().clear();
+                    for (Note note : notes) {
+                        notesContainer.getChildren().add(cardFor(note));
                     }
-                }
+                });
             }
         });
     }
@@ -322,12 +413,11 @@ public class MainController implements Initializable {
     private VBox createDraftNoteCard(String color) {
         VBox draftBox = new VBox(12);
         draftBox.setPrefSize(220, 180);
-        draftBox.setStyle("-fx-background-color: " + color +
-                "; -fx-background-radius: 15; -fx-padding: 15;" +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 10, 0.4, 0, 2);");
+        draftBox.getStyleClass().add("draft-card");
+        AppStyles.applyNoteColor(draftBox, color);
 
         Label titleLabel = new Label("New Note");
-        titleLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px; -fx-text-fill: #333333;");
+        titleLabel.getStyleClass().add("draft-title");
 
         TextArea draftInput = getTextArea();
 
@@ -345,14 +435,14 @@ public class MainController implements Initializable {
                 LocalTime currentTime = LocalTime.now();
                 Note newNote = new Note(content, color, LocalDate.now());
 
-                Database.insertNote(newNote);
-                notesContainer.getChildren().remove(draftBox);
-                addNoteToUI(newNote);
+                saveBtn.setDisable(true);
+                // The card itself is added by the change feed once the insert commits
+                NoteRepository.onFx(NoteRepository.insert(newNote), _ -> notesContainer.getChildren().remove(draftBox));
             }
         });
 
         HBox buttonBox = new HBox(8, cancelBtn, saveBtn);
-        buttonBox.setStyle("-fx-alignment: center-right;");
+        buttonBox.getStyleClass().add("note-bar");
 
         draftBox.getChildren().addAll(titleLabel, draftInput, buttonBox);
 
@@ -371,54 +461,165 @@ public class MainController implements Initializable {
         TextArea draftInput = new TextArea();
         draftInput.setWrapText(true);
         draftInput.setPromptText("Write a note...");
-        draftInput.setStyle(""" 
-                    -fx-background-color: rgba(255,255,255,0.85);
-                    -fx-background-radius: 12;
-                    -fx-padding: 8;
-                    -fx-font-size: 13px;
-                    -fx-border-color: transparent;
-                    -fx-focus-color: transparent;
-                    -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.05), 3, 0.1, 0, 1);
-                """);
+        draftInput.getStyleClass().add("note-input");
         draftInput.setPrefRowCount(4);
         draftInput.setPrefWidth(170);
         return draftInput;
     }
 
     private void loadNotesFromDatabase() {
+        notificationShown.clear();
+        reopenCursor();
+        updateReminderCountLabel(0);
+    }
+
+    // Drops the loaded cards and pages through the notes again with the current filters applied
+    // in SQL, so a filter finds matches that were never loaded rather than hiding loaded ones
+    private void reopenCursor() {
         allNotes.clear();
+        cardsById.clear();
+        editing.clear();
         notesContainer.getChildren().clear();
-        notificationShown.clear();
-        dateFilterComboBox.getItems().clear();
+        oldestLoadedId = Integer.MAX_VALUE;
+
+        // Render the first page as soon as it is read; later pages wait until they are scrolled to
+        noteCursor = Database.openCursor(currentFilter(), NOTE_PAGE_SIZE); // opening does no I/O
+        pageLoading = false;
+        ++loadGeneration;
+        loadNextPage();
+    }
 
-        Set<LocalDate> uniqueDates = new HashSet<>();
+    // The filter combos as a NoteFilter. The SQL side may return a few extra notes, e.g. a
+    // recurring reminder whose rule has ended, so matchesFilters still decides for each card.
+    private NoteFilter currentFilter() {
+        NoteFilter filter = NoteFilter.all();
 
-        for (Note note : Database.getAllNotes()) {
-            addNoteToUI(note);
-            uniqueDates.add(note.getDate());
+        String colorName = colorFilterComboBox.getValue();
+        if (colorName != null && colorMap.containsKey(colorName)) {
+            filter.color(colorMap.get(colorName));
         }
 
-        updateReminderCountLabel(0);
+        String status = statusFilterComboBox.getValue();
+        if ("Completed".equals(status)) {
+            filter.reminderPassed(Instant.now());
+        } else if ("Pending".equals(status)) {
+            filter.reminderPending(Instant.now());
+        }
+
+        String dateFilter = dateFilterComboBox.getValue();
+        LocalDate today = LocalDate.now();
+        if (dateFilter != null) {
+            switch (dateFilter) {
+                case "Today" -> filter.between(today, today);
+                case "Yesterday" -> filter.between(today.minusDays(1), today.minusDays(1));
+                case "This Week" -> filter.between(today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+                        today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)));
+                case "This Month" -> filter.between(today.withDayOfMonth(1), today.with(TemporalAdjusters.lastDayOfMonth()));
+                case "Older" -> filter.between(null, today.minusDays(2));
+                default -> {} // "All"
+            }
+        }
+        return filter;
+    }
+
+    private void loadNextPage() {
+        if (noteCursor == null || pageLoading || !noteCursor.hasNext()) return;
+        if (!searchField.getText().isBlank()) return; // search results are not paged
+
+        pageLoading = true;
+        NoteCursor cursor = noteCursor;
+        int generation = loadGeneration;
+        NoteRepository.onFx(NoteRepository.nextPage(cursor), page -> showPage(generation, page));
+    }
+
+    // Loads another page when the cards shown don't reach past the bottom of the viewport
+    private void loadMoreIfNeeded() {
+        boolean overflows = notesContainer.getHeight() > notesScrollPane.getViewportBounds().getHeight();
+        if (!overflows || notesScrollPane.getVvalue() >= LOAD_MORE_AT) {
+            loadNextPage();
+        }
     }
 
+    private void showPage(int generation, List<Note> page) {
+        if (generation != loadGeneration) return; // a newer reload took over
+        pageLoading = false;
+        if (!page.isEmpty()) {
+            oldestLoadedId = page.getLast().getId();
+        }
+
+        int shown = notesContainer.getChildren().size();
+        for (Note note : page) {
+            appendNoteToUI(note);
+        }
+        // A page the filters hide entirely changes no height, so nothing else would ask for more
+        if (notesContainer.getChildren().size() == shown && searchField.getText().isBlank()) {
+            loadNextPage();
+        }
+    }
+
+    // Inserted and restored notes go where their id puts them: a new note lands on top and an
+    // undone delete back in its old place
     private void addNoteToUI(Note note) {
-        VBox noteBox = new VBox(10);
+        if (!isLoaded(note.getId())) return; // its page has not been read yet and will bring it
+        VBox noteBox = cardFor(note);
+        insertInOrder(allNotes, noteBox);
+        if (searchField.getText().isBlank() && matchesFilters(noteBox)) {
+            insertInOrder(notesContainer.getChildren(), noteBox);
+        }
+    }
+
+    // Paged notes arrive newest-first and are appended below
+    private void appendNoteToUI(Note note) {
+        VBox noteBox = cardFor(note);
+        allNotes.add(noteBox);
+        if (searchField.getText().isBlank() && matchesFilters(noteBox)) {
+            notesContainer.getChildren().add(noteBox);
+        }
+    }
+
+    // Returns the note's card, building it on first use. A search hit gets its card here before
+    // its page is loaded, and the page then reuses it.
+    private VBox cardFor(Note note) {
+        VBox noteBox = cardsById.get(note.getId());
+        if (noteBox != null) return noteBox;
+
+        noteBox = new VBox(10);
         noteBox.setPrefSize(220, 180);
-        noteBox.setStyle("-fx-background-color: " + note.getColor() +
-                "; -fx-background-radius: 15; -fx-padding: 15;" +
-                "-fx-cursor: hand; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.15), 6, 0.3, 0, 1);");
+        noteBox.getStyleClass().add("note-card"); // hover shadow comes from the stylesheet
+        renderNoteCard(noteBox, note);
+        cardsById.put(note.getId(), noteBox);
+
+        ScaleTransition bounce = new ScaleTransition(Duration.millis(250), noteBox);
+        bounce.setFromX(0.9);
+        bounce.setFromY(0.9);
+        bounce.setToX(1);
+        bounce.setToY(1);
+        bounce.setInterpolator(Interpolator.EASE_OUT);
+        bounce.play();
+        return noteBox;
+    }
+
+    // Forgets cards that were built only for search hits, once the search is cleared
+    private void dropSearchCards() {
+        Set<Node> loaded = new HashSet<>(allNotes);
+        cardsById.values().removeIf(noteBox -> !loaded.contains(noteBox));
+    }
+
+    // Fills noteBox with the note's content, status, reminder and actions
+    private void renderNoteCard(VBox noteBox, Note note) {
+        AppStyles.applyNoteColor(noteBox, note.getColor());
 
         Text content = new Text(note.getContent());
         content.setWrappingWidth(190);
-        content.setStyle("-fx-font-size: 14px;");
+        content.getStyleClass().add("note-content");
 
         HBox statusBox = new HBox(5);
         if (note.hasReminder()) {
             Label statusLabel = new Label("Status:");
-            statusLabel.setStyle("-fx-font-size: 10px; -fx-font-weight: bold; -fx-text-fill: #444;");
+            statusLabel.getStyleClass().add("note-meta-label");
 
             Text status = new Text(note.hasReminder() && note.isReminderDone() ? "Pending" : "Completed");
-            status.setStyle("-fx-font-size: 10px; -fx-fill: #444;");
+            status.getStyleClass().add("note-meta");
 
             statusBox.getChildren().addAll(statusLabel, status);
         }
@@ -427,10 +628,10 @@ public class MainController implements Initializable {
         if (note.hasReminder()) {
             reminderBox = new HBox(5);
             Label reminderLabel = new Label("Reminder:");
-            reminderLabel.setStyle("-fx-font-size: 10px; -fx-font-weight: bold; -fx-text-fill: #444;");
+            reminderLabel.getStyleClass().add("note-meta-label");
 
             Text reminderInfo = new Text(note.getFormattedReminder());
-            reminderInfo.setStyle("-fx-font-size: 10px; -fx-fill: #444;");
+            reminderInfo.getStyleClass().add("note-meta");
 
             reminderBox.getChildren().addAll(reminderLabel, reminderInfo);
         }
@@ -438,9 +639,6 @@ public class MainController implements Initializable {
         Region spacer = new Region();
         VBox.setVgrow(spacer, Priority.ALWAYS);
 
-        HBox bottomBar = new HBox(6);
-        bottomBar.setStyle("-fx-alignment: center-right;");
-
         LocalTime currentTime = LocalTime.now();
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
         String formattedTime = currentTime.format(timeFormatter);
@@ -453,10 +651,12 @@ public class MainController implements Initializable {
 
         String dateTimeString = note.getFormattedDate() + " " + formattedTime;
         Text dateTimeText = new Text(dateTimeString);
-        dateTimeText.setStyle("-fx-font-size: 9.5px; -fx-fill: #444;");
+        dateTimeText.getStyleClass().add("note-timestamp");
 
         Region hSpacer = new Region();
-        bottomBar = new HBox(6); bottomBar.setHgrow(hSpacer, Priority.ALWAYS);
+        HBox bottomBar = new HBox(6);
+        bottomBar.getStyleClass().add("note-bar");
+        HBox.setHgrow(hSpacer, Priority.ALWAYS);
 
         Button editBtn = new Button("✏");
         Button deleteBtn = new Button("🗑");
@@ -466,23 +666,22 @@ public class MainController implements Initializable {
         styleIconButton(deleteBtn);
         styleIconButton(reminderBtn);
 
-        editBtn.setStyle(editBtn.getStyle() + "-fx-font-size: 11px;");
-        deleteBtn.setStyle(deleteBtn.getStyle() + "-fx-font-size: 12.5px;");
-        reminderBtn.setStyle(reminderBtn.getStyle() + "-fx-font-size: 12.5px;");
+        editBtn.getStyleClass().addAll("card-action", "edit-action");
+        deleteBtn.getStyleClass().add("card-action");
+        reminderBtn.getStyleClass().add("card-action");
 
         editBtn.setOnAction(_ -> showEditNote(noteBox, note));
         deleteBtn.setOnAction(_ -> {
-            Database.deleteNote(note);
-            notesContainer.getChildren().remove(noteBox);
-            allNotes.remove(noteBox);
-            applyFilters();
+            NoteRepository.delete(note);
+            removeNoteFromUI(noteBox);
+            showUndoDelete(note);
         });
 
         reminderBtn.setOnAction(_ -> setReminderForNote(note, note.getColor()));
 
         bottomBar.getChildren().addAll(dateTimeText, hSpacer, editBtn, deleteBtn, reminderBtn);
 
-        noteBox.getChildren().addAll(content);
+        noteBox.getChildren().setAll(content);
         if (!statusBox.getChildren().isEmpty()) {
             noteBox.getChildren().add(statusBox);
         }
@@ -492,20 +691,18 @@ public class MainController implements Initializable {
         noteBox.getChildren().addAll(spacer, bottomBar);
 
         noteBox.setUserData(note);
+    }
 
-        noteBox.setOnMouseEntered(this::onNoteHoverEnter);
-        noteBox.setOnMouseExited(this::onNoteHoverExit);
-
-        ScaleTransition bounce = new ScaleTransition(Duration.millis(250), noteBox);
-        bounce.setFromX(0.9);
-        bounce.setFromY(0.9);
-        bounce.setToX(1);
-        bounce.setToY(1);
-        bounce.setInterpolator(Interpolator.EASE_OUT);
-
-        notesContainer.getChildren().addFirst(noteBox);
-        allNotes.add(noteBox);
-        bounce.play();
+    // Deletes are soft, so undo just clears the tombstone; the change feed puts the card back
+    private void showUndoDelete(Note note) {
+        String preview = note.getContent().length() > 40 ? note.getContent().substring(0, 40) + "…" : note.getContent();
+        Notifications.create()
+                .title("Note deleted")
+                .text(preview)
+                .owner(notesContainer.getScene().getWindow())
+                .hideAfter(Duration.seconds(UNDO_DELETE_SECONDS))
+                .action(new Action("Undo", _ -> NoteRepository.restore(note)))
+                .showInformation();
     }
 
     private void setReminderForNote(Note note, String noteColor) {
@@ -515,54 +712,74 @@ public class MainController implements Initializable {
         DialogPane dialogPane = dialog.getDialogPane();
         dialogPane.setMinWidth(400); // Expanded width
         dialogPane.setMinHeight(320); // Expanded height
-        dialogPane.setStyle("-fx-background-color: " + noteColor + ";" +
-                "-fx-background-radius: 20;" +
-                "-fx-border-radius: 20;" +
-                "-fx-padding: 20;");
+        dialogPane.getStylesheets().add(AppStyles.STYLESHEET);
+        dialogPane.getStyleClass().add("reminder-dialog");
+        AppStyles.applyNoteColor(dialogPane, noteColor);
 
         VBox contentBox = new VBox(20); // Increased spacing
         contentBox.setPadding(new Insets(25));
-        contentBox.setStyle("-fx-background-color: rgba(255,255,255,0.9);" +
-                "-fx-background-radius: 15;" +
-                "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 10, 0, 0, 5);");
+        contentBox.getStyleClass().add("reminder-content");
 
         Label headerLabel = new Label("🔔 Set Reminder for This Note");
-        headerLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold; -fx-text-fill: #222;");
+        headerLabel.getStyleClass().add("reminder-header");
 
         Label instructionLabel = new Label("Please select a date and time for your reminder:");
-        instructionLabel.setStyle("-fx-font-size: 13.5px; -fx-text-fill: #444;");
+        instructionLabel.getStyleClass().add("reminder-instruction");
 
         // Date Picker
         DatePicker datePicker = new DatePicker();
         datePicker.setPrefWidth(260);
-        datePicker.setStyle("-fx-font-size: 15px; -fx-background-radius: 8; -fx-padding: 8;");
+        datePicker.getStyleClass().add("reminder-date");
 
         // Hour ComboBox (1–12)
         ComboBox<Integer> hourBox = new ComboBox<>();
         IntStream.rangeClosed(1, 12).forEach(hourBox.getItems()::add);
         hourBox.setValue(12);
         hourBox.setPrefWidth(80);
-        hourBox.setStyle("-fx-font-size: 14px; -fx-background-radius: 8;");
+        hourBox.getStyleClass().add("reminder-choice");
 
         // Minute ComboBox (00–59)
         ComboBox<String> minuteBox = new ComboBox<>();
         IntStream.range(0, 60).forEach(min -> minuteBox.getItems().add(String.format("%02d", min)));
         minuteBox.setValue("00");
         minuteBox.setPrefWidth(80);
-        minuteBox.setStyle("-fx-font-size: 14px; -fx-background-radius: 8;");
+        minuteBox.getStyleClass().add("reminder-choice");
 
         // AM/PM ComboBox
         ComboBox<String> amPmBox = new ComboBox<>();
         amPmBox.getItems().addAll("AM", "PM");
         amPmBox.setValue("AM");
         amPmBox.setPrefWidth(80);
-        amPmBox.setStyle("-fx-font-size: 14px; -fx-background-radius: 8;");
+        amPmBox.getStyleClass().add("reminder-choice");
 
         HBox timeBox = new HBox(15, hourBox, minuteBox, amPmBox);
         timeBox.setAlignment(Pos.CENTER);
         timeBox.setPadding(new Insets(10, 0, 0, 0));
 
-        VBox dateTimeBox = new VBox(15, datePicker, timeBox);
+        // Repeat options; a rule set elsewhere (e.g. by an import) is offered as-is so it survives
+        Map<String, RecurrenceRule> repeatOptions = new LinkedHashMap<>();
+        repeatOptions.put("Does not repeat", null);
+        repeatOptions.put("Daily", RecurrenceRule.daily());
+        repeatOptions.put("Weekdays", RecurrenceRule.weekly(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)));
+        repeatOptions.put("Weekly", RecurrenceRule.weekly(Set.of()));
+        repeatOptions.put("Monthly", RecurrenceRule.monthly());
+        String currentRepeat = "Does not repeat";
+        if (note.getRecurrence() != null) {
+            currentRepeat = repeatOptions.entrySet().stream()
+                    .filter(option -> note.getRecurrence().equals(option.getValue()))
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElse(note.getRecurrence().describe());
+            repeatOptions.putIfAbsent(currentRepeat, note.getRecurrence());
+        }
+
+        ComboBox<String> repeatBox = new ComboBox<>();
+        repeatBox.getItems().addAll(repeatOptions.keySet());
+        repeatBox.setValue(currentRepeat);
+        repeatBox.setPrefWidth(260);
+        repeatBox.getStyleClass().add("reminder-choice");
+
+        VBox dateTimeBox = new VBox(15, datePicker, timeBox, repeatBox);
         dateTimeBox.setAlignment(Pos.CENTER);
 
         contentBox.getChildren().addAll(headerLabel, instructionLabel, dateTimeBox);
@@ -591,20 +808,10 @@ public class MainController implements Initializable {
 
                     LocalTime reminderTime = LocalTime.of(hour, minute);
                     note.setReminder(reminderDate, reminderTime);
+                    note.setRecurrence(repeatOptions.get(repeatBox.getValue()));
                     note.setStatus("Pending");
-                    Database.updateNote(note);
-
-                    LocalDateTime reminderDateTime = LocalDateTime.of(reminderDate, reminderTime);
-                    scheduleNotification(reminderDateTime, note);
-
-                    for (Node node : allNotes) {
-                        if (node instanceof VBox vbox && vbox.getUserData() == note) {
-                            notesContainer.getChildren().remove(vbox);
-                            allNotes.remove(vbox);
-                            break;
-                        }
-                    }
-                    addNoteToUI(note);
+                    // the change feed patches the card and reschedules the reminder
+                    NoteRepository.queueUpdate(note);
                 }
             }
             return null;
@@ -618,14 +825,7 @@ public class MainController implements Initializable {
         TextArea editArea = new TextArea(note.getContent());
         editArea.setWrapText(true);
         editArea.setPrefRowCount(4);
-        editArea.setStyle(""" 
-                    -fx-background-color: white;
-                    -fx-background-radius: 10;
-                    -fx-padding: 8;
-                    -fx-font-size: 13px;
-                    -fx-border-color: transparent;
-                    -fx-focus-color: transparent;
-                """);
+        editArea.getStyleClass().add("note-edit-area");
 
         Button saveEdit = new Button("Update");
         stylePrimaryButton(saveEdit);
@@ -633,135 +833,107 @@ public class MainController implements Initializable {
         saveEdit.setOnAction(_ -> {
             String newContent = editArea.getText().trim();
             if (!newContent.isEmpty()) {
+                editing.remove(noteBox);
                 note.setContent(newContent);
-                Database.updateNote(note);
-                notesContainer.getChildren().remove(noteBox);
-                allNotes.remove(noteBox);
-                addNoteToUI(note);
+                NoteRepository.queueUpdate(note); // the change feed patches the card
             }
         });
 
         VBox editBox = new VBox(10, editArea, new HBox(saveEdit));
-        editBox.setStyle("-fx-alignment: center-right;");
+        editBox.getStyleClass().add("note-bar");
 
+        editing.add(noteBox);
         noteBox.getChildren().setAll(editBox);
     }
 
     private void applyFilters() {
-        String selectedColorName = colorFilterComboBox.getValue();
-        String selectedStatus = statusFilterComboBox.getValue();
-        String selectedDateFilter = dateFilterComboBox.getValue();
+        reopenCursor();
+    }
 
+    // Shows the cards paged in so far again, e.g. once a search is cleared
+    private void showLoadedCards() {
         notesContainer.getChildren().clear();
 
         for (Node node : allNotes) {
-            if (!(node instanceof VBox noteBox)) continue;
+            if (node instanceof VBox noteBox && matchesFilters(noteBox)) {
+                notesContainer.getChildren().add(node);
+            }
+        }
+    }
 
-            boolean matches = true;
+    private boolean matchesFilters(VBox noteBox) {
+        return matchesFilters((Note) noteBox.getUserData());
+    }
 
-            // Color filter
-            if (!"All".equals(selectedColorName)) {
-                String selectedColorHex = colorMap.getOrDefault(selectedColorName, "");
-                matches &= noteBox.getStyle().contains(selectedColorHex);
-            }
+    private boolean matchesFilters(Note note) {
+        String selectedColorName = colorFilterComboBox.getValue();
+        String selectedStatus = statusFilterComboBox.getValue();
+        String selectedDateFilter = dateFilterComboBox.getValue();
 
-            // Status filter
-            if (!"All".equals(selectedStatus)) {
-                Note note = (Note) noteBox.getUserData();
-                if (note != null) {
-                    if (note.hasReminder()) {
-                        matches &= note.getStatus().equals(selectedStatus);
-                    } else {
-                        matches = false;
-                    }
-                }
-            }
+        boolean matches = true;
+
+        // Color filter
+        if (selectedColorName != null && !"All".equals(selectedColorName)) {
+            String selectedColorHex = colorMap.getOrDefault(selectedColorName, "");
+            matches &= note != null && AppStyles.hexOf(note.getColor()).equals(selectedColorHex);
+        }
 
-            // Date filter
-            Note note = (Note) noteBox.getUserData();
+        // Status filter
+        if (selectedStatus != null && !"All".equals(selectedStatus)) {
             if (note != null) {
-                LocalDate noteDate = note.getDate();
-                LocalDate today = LocalDate.now();
-
-                switch (selectedDateFilter) {
-                    case "Today":
-                        matches &= noteDate.isEqual(today);
-                        break;
-                    case "Yesterday":
-                        matches &= noteDate.isEqual(today.minusDays(1));
-                        break;
-                    case "This Week":
-                        matches &= !noteDate.isBefore(today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)))
-                                && !noteDate.isAfter(today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)));
-                        break;
-                    case "This Month":
-                        matches &= noteDate.getMonth() == today.getMonth() && noteDate.getYear() == today.getYear();
-                        break;
-                    case "Older":
-                        matches &= noteDate.isBefore(today.minusDays(1));
-                        break;
-                    default: // "All"
-                        break;
+                if (note.hasReminder()) {
+                    matches &= note.getStatus().equals(selectedStatus);
+                } else {
+                    matches = false;
                 }
             }
+        }
 
-            if (matches) {
-                notesContainer.getChildren().add(node);
+        // Date filter
+        if (note != null && selectedDateFilter != null) {
+            LocalDate noteDate = note.getDate();
+            LocalDate today = LocalDate.now();
+
+            switch (selectedDateFilter) {
+                case "Today":
+                    matches &= noteDate.isEqual(today);
+                    break;
+                case "Yesterday":
+                    matches &= noteDate.isEqual(today.minusDays(1));
+                    break;
+                case "This Week":
+                    matches &= !noteDate.isBefore(today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)))
+                            && !noteDate.isAfter(today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)));
+                    break;
+                case "This Month":
+                    matches &= noteDate.getMonth() == today.getMonth() && noteDate.getYear() == today.getYear();
+                    break;
+                case "Older":
+                    matches &= noteDate.isBefore(today.minusDays(1));
+                    break;
+                default: // "All"
+                    break;
             }
         }
+
+        return matches;
     }
 
     private String toWebColor(String buttonStyle) {
-        return buttonStyle.split(":")[1].trim();
+        return AppStyles.hexOf(buttonStyle.split(":")[1]);
     }
 
+    // Button styles live in styles.css; the hover color is a :hover rule
     private void styleSecondaryButton(Button button) {
-        button.setStyle(""" 
-                    -fx-background-color: #5C6BC0;
-                    -fx-text-fill: White;
-                    -fx-font-weight: Bold;
-                    -fx-padding: 8 16;
-                    -fx-border-radius: 12;
-                """);
+        button.getStyleClass().add("secondary-button");
     }
 
     private void styleIconButton(Button button) {
-        button.setStyle(""" 
-                    -fx-background-color: transparent;
-                    -fx-text-fill: #555;
-                    -fx-font-size: 14px;
-                    -fx-border-radius: 5;
-                    -fx-padding: 5;
-                    -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 2, 0.5, 0, 1);
-                """);
-
-        button.setOnMouseEntered(e -> {
-            button.setStyle(button.getStyle() + "-fx-text-fill: #000;");
-        });
-
-        button.setOnMouseExited(e -> {
-            button.setStyle(button.getStyle().replace("-fx-text-fill: #000;", "-fx-text-fill: #555;"));
-        });
+        button.getStyleClass().add("icon-button");
     }
 
     private void stylePrimaryButton(Button button) {
-        button.setStyle(""" 
-                    -fx-background-color: #5C6BC0;
-                    -fx-text-fill: white;
-                    -fx-font-weight: bold;
-                    -fx-padding: 8 16;
-                    -fx-border-radius: 12;
-                """);
-    }
-
-    private void onNoteHoverEnter(MouseEvent event) {
-        Node noteBox = (Node) event.getSource();
-        noteBox.setStyle(noteBox.getStyle() + " -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 8, 0.3, 0, 0);");
-    }
-
-    private void onNoteHoverExit(MouseEvent event) {
-        Node noteBox = (Node) event.getSource();
-        noteBox.setStyle(noteBox.getStyle().replace(" -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 8, 0.3, 0, 0);", ""));
+        button.getStyleClass().add("primary-button");
     }
 
     public void setSearchButton(Button searchButton) {
@@ -771,12 +943,13 @@ public class MainController implements Initializable {
     @FXML
     protected void onBellClicked(ActionEvent actionEvent) {
         resetNotificationCount(); // Resets the count and updates the label
-        loadReminders(); // Load reminders from notes
-        if (reminders.isEmpty()) {
-            showNoRemindersMessage();
-        } else {
-            showReminderPopup(); // Show popup with reminders
-        }
+        loadReminders(() -> {
+            if (reminders.isEmpty()) {
+                showNoRemindersMessage();
+            } else {
+                showReminderPopup(); // Show popup with reminders
+            }
+        });
     }
 
     private void resetNotificationCount() {
@@ -784,20 +957,25 @@ public class MainController implements Initializable {
         updateReminderCountLabel(notificationCount); // Update the label
     }
 
-    private void loadReminders() {
-        reminders.clear();
-        for (Node node : allNotes) {
-            if (node instanceof VBox noteBox) {
-                Note note = (Note) noteBox.getUserData();
-                if (note != null && note.hasReminder()) {
-                    String content = note.getContent();
-                    if (content.length() > 100) {
-                        content = content.substring(0, 100) + "..."; // Truncate and add ellipsis
-                    }
-                    reminders.add(new ReminderItem(content + " - " + note.getFormattedReminder(), note.getColor(), note));
+    // Lists upcoming reminders soonest first, read from the database rather than from the cards,
+    // which only cover the pages loaded so far; then runs on the FX thread once the list is filled
+    private void loadReminders(Runnable then) {
+        CompletableFuture<List<Note>> upcoming = NoteRepository.findUpcomingReminders(Instant.now())
+                .thenCompose(dueAt -> NoteRepository.find(dueAt.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue())
+                        .map(Map.Entry::getKey)
+                        .toList()));
+        NoteRepository.onFx(upcoming, notes -> {
+            reminders.clear();
+            for (Note note : notes) {
+                String content = note.getContent();
+                if (content.length() > 100) {
+                    content = content.substring(0, 100) + "..."; // Truncate and add ellipsis
                 }
+                reminders.add(new ReminderItem(content + " - " + note.getFormattedReminder(), note.getColor(), note));
             }
-        }
+            then.run();
+        });
     }
 
     private void updateReminderCountLabel(int count) {
@@ -812,6 +990,7 @@ public class MainController implements Initializable {
         alert.setContentText("No reminders have been set.");
 
         DialogPane dialogPane = alert.getDialogPane();
+        dialogPane.getStylesheets().add(AppStyles.STYLESHEET);
         dialogPane.setStyle("-fx-background-color: #E0E0E0;"); // Light gray background
 
         ButtonType okButtonType = new ButtonType("OK", ButtonBar.ButtonData.OK_DONE);
@@ -965,9 +1144,8 @@ public class MainController implements Initializable {
                         Note note = item.note;
                         if (note != null) {
                             note.setReminder(null, null);
-                            Database.updateNote(note);
+                            NoteRepository.queueUpdate(note);
                             notificationShown.remove(note);
-                            loadReminders();
                             updateReminderCountLabel(getNotificationCount());
                             listView.getItems().remove(item);
                         }
@@ -1042,9 +1220,8 @@ public class MainController implements Initializable {
                         Note note = item.note;
                         if (note != null) {
                             note.setReminder(null, null);
-                            Database.updateNote(note);
+                            NoteRepository.queueUpdate(note);
                             notificationShown.remove(note);
-                            loadReminders();
                             updateReminderCountLabel(getNotificationCount());
                             ((ListView<ReminderItem>) getListView()).getItems().remove(item);
                         }
@@ -1075,10 +1252,11 @@ public class MainController implements Initializable {
         for (Node node : allNotes) {
             if (node instanceof VBox noteBox) {
                 Note note = (Note) noteBox.getUserData();
-                if (note != null) {
-                    Database.updateNote(note);
+                if (note != null && note.isDirty()) {
+                    NoteRepository.queueUpdate(note);
                 }
             }
         }
+        NoteRepository.flush().join();
     }
 }
\ No newline at end of file
@@ -1,21 +1,32 @@
 package model;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class Note {
+    // Persisted groups of columns that can change after a note is created
+    public enum Field { CONTENT, REMINDER, TASKS }
+
     private int id;
     private String content;
     private final String color;
     private final LocalDate date;
     private LocalDate reminderDate;
     private LocalTime reminderTime;
+    private RecurrenceRule recurrence; // null for a one-shot reminder
     private List<Task> tasks;
     private String status; // Use status instead of completed
     private boolean reminderDone; // Track if the reminder has been done
+    private final transient Set<Field> dirtyFields = EnumSet.noneOf(Field.class); // Changed since last save
 
     // Constructor for notes without reminder
     public Note(String content, String color, LocalDate date) {
@@ -41,7 +52,10 @@ public class Note {
     }
 
     public void setContent(String content) {
-        this.content = content;
+        if (!Objects.equals(this.content, content)) {
+            this.content = content;
+            markDirty(Field.CONTENT);
+        }
     }
 
     public String getColor() {
@@ -58,6 +72,7 @@ public class Note {
 
     public void setTasks(List<Task> tasks) {
         this.tasks = tasks;
+        markDirty(Field.TASKS);
     }
 
     public LocalDate getReminderDate() {
@@ -75,6 +90,9 @@ public class Note {
 
     // Method to set reminder for the note
     public void setReminder(LocalDate date, LocalTime time) {
+        if (!Objects.equals(this.reminderDate, date) || !Objects.equals(this.reminderTime, time)) {
+            markDirty(Field.REMINDER);
+        }
         this.reminderDate = date;
         this.reminderTime = time;
         this.status = "Pending"; // Set status to Pending when reminder is set
@@ -86,15 +104,57 @@ public class Note {
         return reminderDate != null && reminderTime != null;
     }
 
-    // Method to get formatted reminder date and time
+    public RecurrenceRule getRecurrence() {
+        return recurrence;
+    }
+
+    // Makes the reminder repeat from its date and time; null makes it one-shot again
+    public void setRecurrence(RecurrenceRule recurrence) {
+        if (!Objects.equals(this.recurrence, recurrence)) {
+            this.recurrence = recurrence;
+            markDirty(Field.REMINDER);
+        }
+    }
+
+    public boolean isRecurring() {
+        return hasReminder() && recurrence != null;
+    }
+
+    // Method to get formatted reminder date and time; recurring reminders show their next occurrence
     public String getFormattedReminder() {
         if (hasReminder()) {
-            return reminderDate.format(DateTimeFormatter.ofPattern("MMM d, yyyy")) + " " +
-                    reminderTime.format(DateTimeFormatter.ofPattern("hh:mm a"));
+            LocalDateTime shown = LocalDateTime.of(reminderDate, reminderTime);
+            if (recurrence != null) {
+                Instant next = nextReminderAt(Instant.now());
+                if (next != null) {
+                    shown = LocalDateTime.ofInstant(next, ZoneId.systemDefault());
+                }
+            }
+            String formatted = shown.format(DateTimeFormatter.ofPattern("MMM d, yyyy hh:mm a"));
+            return recurrence != null ? formatted + " (" + recurrence.describe() + ")" : formatted;
         }
         return "No reminder set";
     }
 
+    // The moment the reminder is first due in the system time zone, or null without a reminder
+    public Instant getReminderAt() {
+        if (!hasReminder()) return null;
+        return LocalDateTime.of(reminderDate, reminderTime).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    // The first time the reminder is due after `after`, or null if it never is again.
+    // Recurring reminders compute this on demand rather than storing future occurrences.
+    public Instant nextReminderAt(Instant after) {
+        if (!hasReminder()) return null;
+        if (recurrence == null) {
+            Instant at = getReminderAt();
+            return at.isAfter(after) ? at : null;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime next = recurrence.nextAfter(LocalDateTime.of(reminderDate, reminderTime), LocalDateTime.ofInstant(after, zone));
+        return next != null ? next.atZone(zone).toInstant() : null;
+    }
+
     // Check if the reminder is done
     public boolean isReminderDone() {
         return !reminderDone;
@@ -120,4 +180,40 @@ public class Note {
     public String getCreationTime() {
         return null;
     }
+
+    // Dirty tracking: status and reminderDone are not persisted, so they never make a note dirty
+    public synchronized boolean isDirty() {
+        if (!dirtyFields.isEmpty()) return true;
+        for (Task task : tasks) {
+            if (task.isDirty()) return true;
+        }
+        return false;
+    }
+
+    public synchronized Set<Field> getDirtyFields() {
+        return dirtyFields.isEmpty() ? EnumSet.noneOf(Field.class) : EnumSet.copyOf(dirtyFields);
+    }
+
+    // Returns the changed fields and resets them, so edits made while a save runs are kept
+    public synchronized Set<Field> takeDirtyFields() {
+        Set<Field> taken = getDirtyFields();
+        dirtyFields.clear();
+        return taken;
+    }
+
+    public synchronized void markDirty(Field field) {
+        dirtyFields.add(field);
+    }
+
+    public synchronized void clearDirty(Field field) {
+        dirtyFields.remove(field);
+    }
+
+    // Marks the note and its tasks as matching what is stored
+    public synchronized void markClean() {
+        dirtyFields.clear();
+        for (Task task : tasks) {
+            task.takeDirty();
+        }
+    }
 }
\ No newline at end of file
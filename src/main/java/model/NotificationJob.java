@@ -1,13 +1,40 @@
 package model;
 
+import com.example.anote2.db.Database;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+import service.NotificationDispatcher;
+import service.NotificationSink;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Quartz job for one note's reminder. The app registers its reminder handler in the scheduler
+// context; without one the reminder goes straight to the notification sinks.
 public class NotificationJob implements Job {
+    public static final String NOTE_ID = "noteId";
+    public static final String HANDLER = "reminderHandler";
+
     @Override
+    @SuppressWarnings("unchecked")
     public void execute(JobExecutionContext context) throws JobExecutionException {
-        System.out.println("Notification: Time to check your note!");
-        // Logic to send notification to the user
+        int noteId = Integer.parseInt(context.getMergedJobDataMap().getString(NOTE_ID));
+        Note note = Database.getNote(noteId);
+        if (note == null) return; // deleted since it was scheduled
+
+        Object handler;
+        try {
+            handler = context.getScheduler().getContext().get(HANDLER);
+        } catch (SchedulerException e) {
+            throw new JobExecutionException(e);
+        }
+        if (handler instanceof Consumer<?> consumer) {
+            ((Consumer<List<Note>>) consumer).accept(List.of(note));
+        } else {
+            NotificationDispatcher.dispatch(new NotificationSink.Notification(noteId, "Notification", note.getContent(), Instant.now()));
+        }
     }
-}
\ No newline at end of file
+}
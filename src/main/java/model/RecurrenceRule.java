@@ -0,0 +1,176 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// How a reminder repeats, as the RFC 5545 RRULE subset FREQ=DAILY|WEEKLY|MONTHLY with optional
+// INTERVAL, BYDAY (weekly only) and UNTIL. Occurrences are never expanded: nextAfter jumps straight
+// to the first one after a given time, so a recurring reminder costs one queue entry.
+// Monthly reminders on days a month lacks fall on that month's last day instead of being skipped.
+public record RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> days, LocalDate until) {
+    private static final DateTimeFormatter UNTIL_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    public enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    public RecurrenceRule {
+        if (frequency == null) throw new IllegalArgumentException("Recurrence needs a frequency");
+        if (interval < 1) throw new IllegalArgumentException("Recurrence interval must be positive: " + interval);
+        days = days == null || days.isEmpty() ? Set.of() : Set.copyOf(EnumSet.copyOf(days));
+    }
+
+    public static RecurrenceRule daily() {
+        return new RecurrenceRule(Frequency.DAILY, 1, null, null);
+    }
+
+    // No days means the weekday of the first reminder
+    public static RecurrenceRule weekly(Set<DayOfWeek> days) {
+        return new RecurrenceRule(Frequency.WEEKLY, 1, days, null);
+    }
+
+    public static RecurrenceRule monthly() {
+        return new RecurrenceRule(Frequency.MONTHLY, 1, null, null);
+    }
+
+    // Parses e.g. "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;UNTIL=20271231", with or without "RRULE:"
+    public static RecurrenceRule parse(String rule) {
+        String text = rule.trim();
+        if (text.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            text = text.substring(6);
+        }
+        Frequency frequency = null;
+        int interval = 1;
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        LocalDate until = null;
+        for (String part : text.split(";")) {
+            if (part.isBlank()) continue;
+            String[] pair = part.split("=", 2);
+            if (pair.length != 2) throw new IllegalArgumentException("Malformed RRULE part: " + part);
+            String value = pair[1].trim().toUpperCase(Locale.ROOT);
+            switch (pair[0].trim().toUpperCase(Locale.ROOT)) {
+                case "FREQ" -> frequency = Frequency.valueOf(value);
+                case "INTERVAL" -> interval = Integer.parseInt(value);
+                case "BYDAY" -> {
+                    for (String day : value.split(",")) {
+                        days.add(dayOf(day.trim()));
+                    }
+                }
+                // Only the date of a DATE-TIME UNTIL matters at this resolution
+                case "UNTIL" -> until = LocalDate.parse(value.substring(0, 8), UNTIL_FORMAT);
+                default -> throw new IllegalArgumentException("Unsupported RRULE part: " + part);
+            }
+        }
+        if (!days.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY: " + rule);
+        }
+        return new RecurrenceRule(frequency, interval, days, until);
+    }
+
+    // The first occurrence strictly after `after`, counting from start, which is itself the first
+    // occurrence; null once the rule has run out
+    public LocalDateTime nextAfter(LocalDateTime start, LocalDateTime after) {
+        LocalDateTime from = after.isBefore(start) ? start.minusNanos(1) : after;
+        LocalDateTime next = switch (frequency) {
+            case DAILY -> {
+                long k = ChronoUnit.DAYS.between(start, from) / interval;
+                LocalDateTime candidate = start.plusDays(k * interval);
+                while (!candidate.isAfter(from)) {
+                    candidate = start.plusDays(++k * interval);
+                }
+                yield candidate;
+            }
+            case MONTHLY -> {
+                // Always offset from start so a reminder on the 31st comes back after a short month
+                long k = ChronoUnit.MONTHS.between(start, from) / interval;
+                LocalDateTime candidate = start.plusMonths(k * interval);
+                while (!candidate.isAfter(from)) {
+                    candidate = start.plusMonths(++k * interval);
+                }
+                yield candidate;
+            }
+            case WEEKLY -> nextWeekly(start, from);
+        };
+        return until != null && next.toLocalDate().isAfter(until) ? null : next;
+    }
+
+    private LocalDateTime nextWeekly(LocalDateTime start, LocalDateTime from) {
+        Set<DayOfWeek> weekdays = days.isEmpty() ? Set.of(start.getDayOfWeek()) : days;
+        LocalDate firstWeek = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        long k = ChronoUnit.WEEKS.between(firstWeek, from.toLocalDate()) / interval;
+        // Some week among this one and the next holds the answer
+        while (true) {
+            LocalDate week = firstWeek.plusWeeks(k * interval);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (!weekdays.contains(day)) continue;
+                LocalDateTime candidate = LocalDateTime.of(week.plusDays(day.ordinal()), start.toLocalTime());
+                if (!candidate.isBefore(start) && candidate.isAfter(from)) {
+                    return candidate;
+                }
+            }
+            k++;
+        }
+    }
+
+    // Short text for cards, e.g. "Every 2 weeks on Mon, Wed"
+    public String describe() {
+        String unit = switch (frequency) {
+            case DAILY -> "day";
+            case WEEKLY -> "week";
+            case MONTHLY -> "month";
+        };
+        StringBuilder text = new StringBuilder(interval == 1
+                ? switch (frequency) {
+                    case DAILY -> "Daily";
+                    case WEEKLY -> "Weekly";
+                    case MONTHLY -> "Monthly";
+                }
+                : "Every " + interval + " " + unit + "s");
+        if (!days.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (days.contains(day)) names.add(day.getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+            }
+            text.append(" on ").append(String.join(", ", names));
+        }
+        if (until != null) {
+            text.append(" until ").append(until.format(DateTimeFormatter.ofPattern("MMM d, yyyy")));
+        }
+        return text.toString();
+    }
+
+    // The RRULE text, as stored in the reminder_rule column
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1) {
+            rule.append(";INTERVAL=").append(interval);
+        }
+        if (!days.isEmpty()) {
+            List<String> codes = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (days.contains(day)) codes.add(day.name().substring(0, 2));
+            }
+            rule.append(";BYDAY=").append(String.join(",", codes));
+        }
+        if (until != null) {
+            rule.append(";UNTIL=").append(until.format(UNTIL_FORMAT));
+        }
+        return rule.toString();
+    }
+
+    private static DayOfWeek dayOf(String code) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().startsWith(code) && code.length() == 2) return day;
+        }
+        throw new IllegalArgumentException("Unknown BYDAY value: " + code);
+    }
+}
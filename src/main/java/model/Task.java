@@ -1,8 +1,11 @@
 package model;
 
+import java.util.Objects;
+
 public class Task {
     private String description;
     private boolean completed;
+    private transient volatile boolean dirty; // Changed since last save
 
     public Task(String description, boolean completed) {
         this.description = description;
@@ -22,11 +25,28 @@ public class Task {
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        if (!Objects.equals(this.description, description)) {
+            this.description = description;
+            dirty = true;
+        }
     }
 
     public void setCompleted(boolean completed) {
-        this.completed = completed;
+        if (this.completed != completed) {
+            this.completed = completed;
+            dirty = true;
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // Returns whether the task changed since last save and resets the flag
+    public boolean takeDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
     }
 
     public void checkReminder() {
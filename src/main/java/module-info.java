@@ -3,6 +3,9 @@ module com.example.noteifcation_app {
     requires javafx.fxml;
     requires com.google.gson;
     requires java.sql;
+    requires java.management;
+    requires java.net.http;
+    requires org.xerial.sqlitejdbc;
     requires quartz;
     requires org.controlsfx.controls;
     requires javafx.media;
@@ -10,9 +13,9 @@ module com.example.noteifcation_app {
 
     exports com.example.notefication_app;
     exports controller;
-    opens model to com.google.gson;
+    opens model to com.google.gson, quartz;
     exports com.example.anote2.db;
-    opens com.example.anote2.db to javafx.fxml;
+    opens com.example.anote2.db to javafx.fxml, com.google.gson;
     opens controller to com.google.gson, javafx.fxml;
     opens service to com.google.gson;
     opens com.example.notefication_app to com.google.gson, javafx.fxml;
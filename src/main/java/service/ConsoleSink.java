@@ -0,0 +1,14 @@
+package service;
+
+public class ConsoleSink implements NotificationSink {
+    @Override
+    public String name() {
+        return "console";
+    }
+
+    @Override
+    public void deliver(Notification notification) {
+        System.out.println("Reminder for note " + notification.noteId() + " at " + notification.firedAt()
+                + ": " + notification.text());
+    }
+}
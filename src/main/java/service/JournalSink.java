@@ -0,0 +1,44 @@
+package service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends one JSON line per notification. The file is opened per record: notifications are rare,
+// and an interrupted write cannot leave a closed channel behind for the next one.
+public class JournalSink implements NotificationSink {
+    private static final Gson gson = new Gson();
+
+    private final Path file;
+
+    public JournalSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+    @Override
+    public void deliver(Notification notification) throws IOException {
+        String line = gson.toJson(toJson(notification)) + System.lineSeparator();
+        Files.writeString(file, line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    // java.time is not open to Gson, so the record is mapped by hand
+    static JsonObject toJson(Notification notification) {
+        JsonObject json = new JsonObject();
+        json.addProperty("noteId", notification.noteId());
+        json.addProperty("title", notification.title());
+        json.addProperty("text", notification.text());
+        json.addProperty("firedAt", notification.firedAt().toString());
+        return json;
+    }
+}
@@ -0,0 +1,154 @@
+package service;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fans fired reminders out to the notification sinks. Every sink has its own worker thread and
+// bounded queue, so dispatch() never blocks: a sink that falls behind drops its own notifications
+// without holding up the popup or the reminder engine, and a delivery that runs past the timeout
+// is interrupted. Sinks come from system properties:
+//   anote.notify.sinks    comma-separated, from popup, console, journal, webhook (default popup,console)
+//   anote.notify.journal  journal file (default ~/anote-notifications.jsonl)
+//   anote.notify.webhook  URL the webhook sink posts to; required for that sink
+//   anote.notify.timeout.ms, anote.notify.queue  per-delivery timeout and per-sink queue capacity
+public class NotificationDispatcher {
+    private static final long TIMEOUT_MILLIS = Math.max(1, Long.getLong("anote.notify.timeout.ms", 5000));
+    private static final int QUEUE_CAPACITY = Math.max(1, Integer.getInteger("anote.notify.queue", 100));
+
+    private record Worker(NotificationSink sink, ThreadPoolExecutor executor, AtomicLong dropped) {}
+
+    private static final List<Worker> workers = new ArrayList<>();
+    private static ScheduledExecutorService watchdog;
+    private static boolean configured;
+
+    // Builds the configured sinks; the app calls this at startup so the first reminder does not
+    // pay for it. Later calls do nothing.
+    public static synchronized void configure() {
+        if (configured) return;
+        configured = true;
+        for (NotificationSink sink : configuredSinks()) {
+            register(sink);
+        }
+    }
+
+    public static void dispatch(NotificationSink.Notification notification) {
+        for (Worker worker : workers()) {
+            worker.executor().execute(() -> deliver(worker.sink(), notification));
+        }
+    }
+
+    // Adds a sink next to the configured ones
+    public static synchronized void register(NotificationSink sink) {
+        configure();
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "notify-watchdog"));
+        }
+        AtomicLong dropped = new AtomicLong();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> daemon(r, "notify-" + sink.name()),
+                (_, _) -> {
+                    // Report the first drop and then every hundredth, not each one
+                    long count = dropped.incrementAndGet();
+                    if (count == 1 || count % 100 == 0) {
+                        System.err.println("Notification sink " + sink.name() + " is behind; dropped " + count + " notifications.");
+                    }
+                });
+        workers.add(new Worker(sink, executor, dropped));
+    }
+
+    // Lets queued deliveries finish for up to the timeout, then stops the workers
+    public static synchronized void shutdown() {
+        for (Worker worker : workers) {
+            worker.executor().shutdown();
+        }
+        for (Worker worker : workers) {
+            try {
+                if (!worker.executor().awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    worker.executor().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                worker.executor().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+    }
+
+    private static synchronized List<Worker> workers() {
+        configure();
+        return List.copyOf(workers);
+    }
+
+    // Runs on the sink's worker thread. The watchdog only interrupts while this delivery is still
+    // running: it checks the delivery's own done flag under that flag's lock, and finally sets the
+    // flag under the same lock, so an interrupt either lands before finally clears it or not at all.
+    private static void deliver(NotificationSink sink, NotificationSink.Notification notification) {
+        Thread worker = Thread.currentThread();
+        AtomicBoolean done = new AtomicBoolean();
+        ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+            synchronized (done) {
+                if (!done.get()) worker.interrupt();
+            }
+        }, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            sink.deliver(notification);
+        } catch (InterruptedException e) {
+            System.err.println("Notification sink " + sink.name() + " timed out after " + TIMEOUT_MILLIS + " ms.");
+        } catch (Exception e) {
+            System.err.println("Notification sink " + sink.name() + " failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            synchronized (done) {
+                done.set(true);
+            }
+            timeout.cancel(false);
+            Thread.interrupted(); // clear an interrupt the sink did not consume
+        }
+    }
+
+    private static List<NotificationSink> configuredSinks() {
+        List<NotificationSink> sinks = new ArrayList<>();
+        for (String name : System.getProperty("anote.notify.sinks", "popup,console").split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "" -> {}
+                case "popup" -> sinks.add(new PopupSink());
+                case "console" -> sinks.add(new ConsoleSink());
+                case "journal" -> sinks.add(new JournalSink(Path.of(System.getProperty("anote.notify.journal",
+                        Path.of(System.getProperty("user.home"), "anote-notifications.jsonl").toString()))));
+                case "webhook" -> {
+                    String url = System.getProperty("anote.notify.webhook");
+                    if (url == null || url.isBlank()) {
+                        System.err.println("The webhook notification sink needs -Danote.notify.webhook=<url>; skipping it.");
+                    } else {
+                        sinks.add(new WebhookSink(URI.create(url.trim()), Duration.ofMillis(TIMEOUT_MILLIS)));
+                    }
+                }
+                default -> System.err.println("Unknown notification sink: " + name);
+            }
+        }
+        return sinks;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -1,15 +1,20 @@
 package service;
 
+import com.example.notefication_app.AppStyles;
 import javafx.animation.*;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.collections.ListChangeListener;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Popup;
 import javafx.stage.Screen;
@@ -18,404 +23,477 @@ import javafx.stage.Window;
 import javafx.util.Duration;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Notifications are queued and handed to the FX thread by a delivery thread. At most MAX_ON_SCREEN
+// popups exist at once and new ones are rate limited by a token bucket; whatever piles up behind
+// those limits, or arrives within one coalescing window beyond them, is shown as one summary popup.
 public class NotificationService {
 
     private static final List<Popup> activeNotifications = new ArrayList<>();
+    // Hidden views ready for reuse; FX thread only
+    private static final ArrayDeque<NotificationView> pool = new ArrayDeque<>();
+    // Layout driver state; FX thread only
+    private static final double LAYOUT_EASE_MILLIS = 60;
+    private static AnimationTimer layoutDriver;
+    private static boolean layoutRunning;
+    private static long lastLayoutFrame;
+    private static Rectangle2D cachedScreenBounds;
+    private static boolean screenListenerInstalled;
+    // The window cachedScreenBounds was found for; moving or resizing it clears the cache
+    private static Window boundsWindow;
+    private static final InvalidationListener windowMoved = _ -> cachedScreenBounds = null;
     private static final double NOTIFICATION_WIDTH = 350;
     private static final double NOTIFICATION_HEIGHT = 120;
     private static final double NOTIFICATION_SPACING = 15;
 
+    // Override with -Danote.notifications.max=N and so on
+    private static final int MAX_ON_SCREEN = Math.max(1, Integer.getInteger("anote.notifications.max", 4));
+    private static final int BURST = Math.max(1, Integer.getInteger("anote.notifications.burst", 3));
+    private static final long REFILL_MILLIS = Math.max(1, Long.getLong("anote.notifications.refill.ms", 2000));
+    private static final long WINDOW_MILLIS = Math.max(0, Long.getLong("anote.notifications.window.ms", 500));
+    private static final int SUMMARY_LINES = 3;
+    // Color schemes for showCustomNotification; anything else gets the standard gradient
+    private static final Map<String, PseudoClass> SCHEMES = Map.of(
+            "success", PseudoClass.getPseudoClass("success"),
+            "warning", PseudoClass.getPseudoClass("warning"),
+            "info", PseudoClass.getPseudoClass("info")
+    );
+
+    private record Pending(String title, String text, String colorScheme) {}
+
+    private static final ScheduledExecutorService delivery = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "notification-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Queue state, guarded by the lock. onScreen counts popups from hand-off until they are hidden,
+    // so it bounds what the FX thread is animating.
+    private static final Object lock = new Object();
+    private static final ArrayDeque<Pending> waiting = new ArrayDeque<>();
+    private static int onScreen;
+    private static double tokens = BURST;
+    private static long refilledAt = System.nanoTime();
+    private static boolean drainScheduled;
+
     public static void showNotification(String title, String text) {
-        Platform.runLater(() -> createStyledNotification(title, text));
+        enqueue(new Pending(title, text, null));
     }
 
-    private static void createStyledNotification(String title, String text) {
-        // Create popup window
-        Popup popup = new Popup();
-        popup.setAutoHide(false);
-        popup.setConsumeAutoHidingEvents(false);
-
-        // Main container
-        VBox mainContainer = new VBox();
-        mainContainer.setPrefSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
-        mainContainer.setMaxSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
-        mainContainer.setMinSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
-
-        // Create gradient background
-        VBox contentContainer = getVBox();
-
-        // Icon and title container
-        HBox headerContainer = new HBox(12);
-        headerContainer.setAlignment(Pos.CENTER_LEFT);
-
-        // Bell icon with styling
-        Label iconLabel = new Label("🔔");
-        iconLabel.setStyle(
-                "-fx-font-size: 24px;" +
-                        "-fx-text-fill: white;" +
-                        "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.3), 3, 0.5, 0, 1);"
-        );
-
-        // Animated pulse effect for icon
-        ScaleTransition iconPulse = new ScaleTransition(Duration.millis(800), iconLabel);
-        iconPulse.setFromX(1.0);
-        iconPulse.setFromY(1.0);
-        iconPulse.setToX(1.15);
-        iconPulse.setToY(1.15);
-        iconPulse.setCycleCount(2);
-        iconPulse.setAutoReverse(true);
-        iconPulse.play();
-
-        // Title label
-        Label titleLabel = new Label(title);
-        titleLabel.setStyle(
-                "-fx-font-size: 18px;" +
-                        "-fx-font-weight: 700;" +
-                        "-fx-text-fill: white;" +
-                        "-fx-font-family: 'Segoe UI', 'Helvetica Neue', 'Arial', sans-serif;" +
-                        "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.4), 2, 0.5, 0, 1);"
-        );
-
-        headerContainer.getChildren().addAll(iconLabel, titleLabel);
-
-        // Message text
-        Label messageLabel = new Label(text);
-        messageLabel.setWrapText(true);
-        messageLabel.setMaxWidth(NOTIFICATION_WIDTH - 48);
-        messageLabel.setStyle(
-                "-fx-font-size: 14px;" +
-                        "-fx-text-fill: rgba(255, 255, 255, 0.95);" +
-                        "-fx-font-family: 'Segoe UI', 'Helvetica Neue', 'Arial', sans-serif;" +
-                        "-fx-line-spacing: 2px;"
-        );
-
-        // Progress bar indicator (optional visual element)
-        Rectangle progressBar = new Rectangle();
-        progressBar.setWidth(0);
-        progressBar.setHeight(3);
-        progressBar.setFill(Color.WHITE);
-        progressBar.setOpacity(0.8);
-
-        // Animate progress bar
-        Timeline progressAnimation = new Timeline();
-        KeyValue progressKeyValue = new KeyValue(progressBar.widthProperty(), NOTIFICATION_WIDTH - 48);
-        KeyFrame progressKeyFrame = new KeyFrame(Duration.seconds(5), progressKeyValue);
-        progressAnimation.getKeyFrames().add(progressKeyFrame);
-
-        // Add all elements to content container
-        Region spacer = new Region();
-        VBox.setVgrow(spacer, Priority.ALWAYS);
-
-        contentContainer.getChildren().addAll(
-                headerContainer,
-                messageLabel,
-                spacer,
-                progressBar
-        );
-
-        mainContainer.getChildren().add(contentContainer);
-        popup.getContent().add(mainContainer);
-
-        // Position notification - Modified to show in bottom-right area
-        positionNotificationBottomRight(popup);
-
-        // Entry animation
-        mainContainer.setTranslateX(400);
-        mainContainer.setOpacity(0);
-
-        TranslateTransition slideIn = new TranslateTransition(Duration.millis(350), mainContainer);
-        slideIn.setFromX(400);
-        slideIn.setToX(0);
-        slideIn.setInterpolator(Interpolator.EASE_OUT);
-
-        FadeTransition fadeIn = new FadeTransition(Duration.millis(350), mainContainer);
-        fadeIn.setFromValue(0);
-        fadeIn.setToValue(1);
-
-        ParallelTransition entryAnimation = new ParallelTransition(slideIn, fadeIn);
-
-        // Show notification
-        Window window = getPrimaryWindow();
-        // Fallback if no window available
-        popup.show(Objects.requireNonNullElseGet(window, Stage::new));
-        activeNotifications.add(popup);
-
-        // Start animations
-        entryAnimation.play();
-        progressAnimation.play();
-
-        // Auto-hide after 5 seconds
-        Timeline autoHide = new Timeline();
-        autoHide.getKeyFrames().add(new KeyFrame(Duration.seconds(5), _ -> hideNotification(popup, mainContainer)));
-        autoHide.play();
-
-        // Click to dismiss
-        mainContainer.setOnMouseClicked(_ -> hideNotification(popup, mainContainer));
+    // Popups waiting for a free slot or a token
+    public static int queuedCount() {
+        synchronized (lock) {
+            return waiting.size();
+        }
+    }
 
-        // Hover effects
-        mainContainer.setOnMouseEntered(_ -> {
-            ScaleTransition scaleUp = new ScaleTransition(Duration.millis(100), mainContainer);
-            scaleUp.setToX(1.02);
-            scaleUp.setToY(1.02);
-            scaleUp.play();
+    private static void enqueue(Pending pending) {
+        synchronized (lock) {
+            waiting.add(pending);
+        }
+        // Waiting out the window lets the rest of a burst of reminders join this one
+        scheduleDrain(WINDOW_MILLIS);
+    }
 
-            progressAnimation.pause();
-        });
+    private static void scheduleDrain(long delayMillis) {
+        synchronized (lock) {
+            if (drainScheduled) return;
+            drainScheduled = true;
+        }
+        delivery.schedule(NotificationService::drain, delayMillis, TimeUnit.MILLISECONDS);
+    }
 
-        mainContainer.setOnMouseExited(_ -> {
-            ScaleTransition scaleDown = new ScaleTransition(Duration.millis(100), mainContainer);
-            scaleDown.setToX(1.0);
-            scaleDown.setToY(1.0);
-            scaleDown.play();
+    // Runs on the delivery thread: shows what the limits allow, individually if everything waiting
+    // fits and as a single summary otherwise
+    private static void drain() {
+        List<Pending> batch = new ArrayList<>();
+        long retryMillis = -1;
+        synchronized (lock) {
+            drainScheduled = false;
+            refill();
+            int available = Math.min(MAX_ON_SCREEN - onScreen, (int) tokens);
+            if (!waiting.isEmpty() && available > 0) {
+                if (waiting.size() <= available) {
+                    batch.addAll(waiting);
+                } else {
+                    batch.add(summarize(waiting));
+                }
+                waiting.clear();
+                onScreen += batch.size();
+                tokens -= batch.size();
+            } else if (!waiting.isEmpty() && onScreen < MAX_ON_SCREEN) {
+                // Out of tokens; a hidden popup triggers the retry when slots are the limit instead
+                retryMillis = (long) Math.ceil((1 - tokens) * REFILL_MILLIS);
+            }
+        }
+        if (retryMillis >= 0) {
+            scheduleDrain(retryMillis);
+        }
 
-            progressAnimation.play();
-        });
+        for (Pending pending : batch) {
+            try {
+                Platform.runLater(() -> showPending(pending));
+            } catch (IllegalStateException e) {
+                // No FX toolkit, e.g. a headless run; nothing will ever hide this one
+                System.out.println(pending.title() + ": " + pending.text());
+                released();
+            }
+        }
     }
 
-    private static VBox getVBox() {
-        VBox contentContainer = new VBox(8);
-        contentContainer.setPadding(new Insets(20, 24, 20, 24));
-        contentContainer.setAlignment(Pos.TOP_LEFT);
-        contentContainer.setPrefSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
-
-        // Modern gradient styling
-        contentContainer.setStyle(
-                "-fx-background-color: linear-gradient(to bottom right, #667eea 0%, #764ba2 100%);" +
-                        "-fx-background-radius: 16;" +
-                        "-fx-border-radius: 16;" +
-                        "-fx-border-color: rgba(255, 255, 255, 0.2);" +
-                        "-fx-border-width: 1.5;" +
-                        "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.25), 20, 0.3, 0, 8);"
-        );
-        return contentContainer;
+    private static void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(BURST, tokens + (double) (now - refilledAt) / TimeUnit.MILLISECONDS.toNanos(REFILL_MILLIS));
+        refilledAt = now;
     }
 
-    private static void hideNotification(Popup popup, VBox container) {
-        if (!activeNotifications.contains(popup)) return;
+    // e.g. "12 notes due" followed by the first few distinct messages
+    private static Pending summarize(ArrayDeque<Pending> pending) {
+        Set<String> texts = new LinkedHashSet<>();
+        for (Pending p : pending) {
+            texts.add(p.text());
+        }
+        List<String> lines = new ArrayList<>(texts).subList(0, Math.min(SUMMARY_LINES, texts.size()));
+        String text = String.join("\n", lines);
+        if (texts.size() > lines.size()) {
+            text += "\nand " + (texts.size() - lines.size()) + " more";
+        }
+        return new Pending(pending.size() + " notes due", text, null);
+    }
 
-        // Exit animation
-        TranslateTransition slideOut = new TranslateTransition(Duration.millis(300), container);
-        slideOut.setToX(400);
-        slideOut.setInterpolator(Interpolator.EASE_IN);
+    // A popup finished hiding; its slot may let the next batch through
+    private static void released() {
+        boolean more;
+        synchronized (lock) {
+            onScreen--;
+            more = !waiting.isEmpty();
+        }
+        if (more) {
+            scheduleDrain(0);
+        }
+    }
 
-        FadeTransition fadeOut = new FadeTransition(Duration.millis(300), container);
-        fadeOut.setToValue(0);
+    // Runs on the FX thread
+    private static void showPending(Pending pending) {
+        NotificationView view = pool.poll();
+        if (view == null) {
+            view = new NotificationView();
+        }
+        view.bind(pending.title(), pending.text(), pending.colorScheme());
 
-        ParallelTransition exitAnimation = new ParallelTransition(slideOut, fadeOut);
-        exitAnimation.setOnFinished(_ -> {
-            popup.hide();
-            activeNotifications.remove(popup);
-            repositionNotifications(); // Re-enable repositioning to maintain proper stacking
-        });
+        // Position notification in the bottom-right area and move the others up
+        activeNotifications.add(view.popup);
+        placeNewest(view.popup);
+        layoutNotifications();
 
-        exitAnimation.play();
+        // Show notification
+        Window window = getPrimaryWindow();
+        // Fallback if no window available
+        view.popup.show(Objects.requireNonNullElseGet(window, Stage::new));
+        view.play();
     }
 
-    // Position notifications exactly like ControlsFX Pos.BOTTOM_RIGHT
-    private static void positionNotificationBottomRight(Popup popup) {
-        Window window = getPrimaryWindow();
-        Screen screen = (window != null) ? Screen.getScreensForRectangle(window.getX(), window.getY(), window.getWidth(), window.getHeight()).getFirst()
-                : Screen.getPrimary();
+    // One reusable popup with its nodes and animations. The delivery queue caps how many are on
+    // screen, so the pool never needs to hold more than that many; a recycled view is only
+    // re-bound to its new text and scheme, with no scene-graph, CSS or animation setup.
+    private static class NotificationView {
+        final Popup popup = new Popup();
+        final VBox mainContainer = new VBox();
+        final VBox contentContainer = new VBox(8);
+        final Label iconLabel = new Label("🔔");
+        final Label titleLabel = new Label();
+        final Label messageLabel = new Label();
+        final Rectangle progressBar = new Rectangle();
+
+        final ScaleTransition iconPulse = new ScaleTransition(Duration.millis(800), iconLabel);
+        final Timeline progressAnimation = new Timeline();
+        final ParallelTransition entryAnimation;
+        final ParallelTransition exitAnimation;
+        final PauseTransition autoHide = new PauseTransition();
+        final ScaleTransition scaleUp = new ScaleTransition(Duration.millis(100), mainContainer);
+        final ScaleTransition scaleDown = new ScaleTransition(Duration.millis(100), mainContainer);
+
+        // Custom notifications have no pulse, progress bar or hover effect
+        boolean custom;
+
+        NotificationView() {
+            popup.setAutoHide(false);
+            popup.setConsumeAutoHidingEvents(false);
+            popup.setUserData(this);
+
+            // Main container
+            mainContainer.getStylesheets().add(AppStyles.STYLESHEET);
+            mainContainer.setPrefSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
+            mainContainer.setMaxSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
+            mainContainer.setMinSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
+
+            contentContainer.getStyleClass().add("notification");
+            contentContainer.setPadding(new Insets(20, 24, 20, 24));
+            contentContainer.setAlignment(Pos.TOP_LEFT);
+            contentContainer.setPrefSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
+
+            // Icon and title container
+            HBox headerContainer = new HBox(12);
+            headerContainer.setAlignment(Pos.CENTER_LEFT);
+
+            // Bell icon with styling
+            iconLabel.getStyleClass().add("notification-icon");
+
+            // Animated pulse effect for icon
+            iconPulse.setFromX(1.0);
+            iconPulse.setFromY(1.0);
+            iconPulse.setToX(1.15);
+            iconPulse.setToY(1.15);
+            iconPulse.setCycleCount(2);
+            iconPulse.setAutoReverse(true);
+
+            // Title label
+            titleLabel.getStyleClass().add("notification-title");
+
+            headerContainer.getChildren().addAll(iconLabel, titleLabel);
+
+            // Message text
+            messageLabel.setWrapText(true);
+            messageLabel.setMaxWidth(NOTIFICATION_WIDTH - 48);
+            messageLabel.getStyleClass().add("notification-message");
+
+            // Progress bar indicator (optional visual element)
+            progressBar.setHeight(3);
+            progressBar.getStyleClass().add("notification-progress");
+            progressBar.managedProperty().bind(progressBar.visibleProperty());
+
+            // Animate progress bar
+            KeyValue progressKeyValue = new KeyValue(progressBar.widthProperty(), NOTIFICATION_WIDTH - 48);
+            progressAnimation.getKeyFrames().add(new KeyFrame(Duration.seconds(5), progressKeyValue));
+
+            Region spacer = new Region();
+            VBox.setVgrow(spacer, Priority.ALWAYS);
+
+            contentContainer.getChildren().addAll(headerContainer, messageLabel, spacer, progressBar);
+            mainContainer.getChildren().add(contentContainer);
+            popup.getContent().add(mainContainer);
+
+            // Entry animation
+            TranslateTransition slideIn = new TranslateTransition(Duration.millis(350), mainContainer);
+            slideIn.setFromX(400);
+            slideIn.setToX(0);
+            slideIn.setInterpolator(Interpolator.EASE_OUT);
+
+            FadeTransition fadeIn = new FadeTransition(Duration.millis(350), mainContainer);
+            fadeIn.setFromValue(0);
+            fadeIn.setToValue(1);
+
+            entryAnimation = new ParallelTransition(slideIn, fadeIn);
+
+            // Exit animation
+            TranslateTransition slideOut = new TranslateTransition(Duration.millis(300), mainContainer);
+            slideOut.setToX(400);
+            slideOut.setInterpolator(Interpolator.EASE_IN);
+
+            FadeTransition fadeOut = new FadeTransition(Duration.millis(300), mainContainer);
+            fadeOut.setToValue(0);
+
+            exitAnimation = new ParallelTransition(slideOut, fadeOut);
+            exitAnimation.setOnFinished(_ -> {
+                popup.hide();
+                recycle(this);
+                layoutNotifications(); // close the gap
+            });
+
+            // Auto-hide, click to dismiss
+            autoHide.setOnFinished(_ -> hide());
+            mainContainer.setOnMouseClicked(_ -> hide());
+
+            // Hover effects
+            scaleUp.setToX(1.02);
+            scaleUp.setToY(1.02);
+            scaleDown.setToX(1.0);
+            scaleDown.setToY(1.0);
+            mainContainer.setOnMouseEntered(_ -> {
+                if (custom) return;
+                scaleUp.playFromStart();
+                progressAnimation.pause();
+            });
+            mainContainer.setOnMouseExited(_ -> {
+                if (custom) return;
+                scaleDown.playFromStart();
+                progressAnimation.play();
+            });
+        }
 
-        double screenWidth = screen.getVisualBounds().getWidth();
-        double screenHeight = screen.getVisualBounds().getHeight();
-        double screenMinX = screen.getVisualBounds().getMinX();
-        double screenMinY = screen.getVisualBounds().getMinY();
+        // colorScheme is null for the standard notification
+        void bind(String title, String text, String colorScheme) {
+            custom = colorScheme != null;
+            titleLabel.setText(title);
+            messageLabel.setText(text);
+            PseudoClass scheme = custom ? SCHEMES.get(colorScheme.toLowerCase(Locale.ROOT)) : null;
+            for (PseudoClass pseudoClass : SCHEMES.values()) {
+                contentContainer.pseudoClassStateChanged(pseudoClass, pseudoClass == scheme);
+            }
+            progressBar.setVisible(!custom);
+            progressBar.setWidth(0);
+            autoHide.setDuration(Duration.seconds(custom ? 4 : 5));
+
+            mainContainer.setTranslateX(400);
+            mainContainer.setOpacity(0);
+            mainContainer.setScaleX(1.0);
+            mainContainer.setScaleY(1.0);
+            iconLabel.setScaleX(1.0);
+            iconLabel.setScaleY(1.0);
+        }
 
-        // Position in bottom-right corner - new notifications appear at the bottom
-        double x = screenMinX + screenWidth - NOTIFICATION_WIDTH - 20;
-        double y = screenMinY + screenHeight - NOTIFICATION_HEIGHT - 20;
+        void play() {
+            entryAnimation.playFromStart();
+            autoHide.playFromStart();
+            if (!custom) {
+                iconPulse.playFromStart();
+                progressAnimation.playFromStart();
+            }
+        }
 
-        popup.setX(x);
-        popup.setY(y);
+        void hide() {
+            if (!activeNotifications.contains(popup)) return;
+            if (exitAnimation.getStatus() == Animation.Status.RUNNING) return;
+            autoHide.stop();
+            exitAnimation.playFromStart();
+        }
 
-        // Move existing notifications up to make room for the new one
-        moveExistingNotificationsUp();
+        void stop() {
+            entryAnimation.stop();
+            exitAnimation.stop();
+            autoHide.stop();
+            iconPulse.stop();
+            progressAnimation.stop();
+            scaleUp.stop();
+            scaleDown.stop();
+        }
     }
 
-    // Move all existing notifications up when a new one is added
-    private static void moveExistingNotificationsUp() {
-        Window window = getPrimaryWindow();
-        Screen screen = (window != null) ? Screen.getScreensForRectangle(window.getX(), window.getY(), window.getWidth(), window.getHeight()).getFirst()
-                : Screen.getPrimary();
+    // Takes a hidden view off the screen count and back into the pool
+    private static void recycle(NotificationView view) {
+        if (!activeNotifications.remove(view.popup)) return;
+        view.stop();
+        if (pool.size() < MAX_ON_SCREEN) {
+            pool.push(view);
+        }
+        released();
+    }
 
-        double screenWidth = screen.getVisualBounds().getWidth();
-        double screenMinX = screen.getVisualBounds().getMinX();
+    // Puts a new popup straight into the bottom slot, where the newest one goes
+    private static void placeNewest(Popup popup) {
+        Rectangle2D bounds = screenBounds();
+        popup.setX(bounds.getMaxX() - NOTIFICATION_WIDTH - 20);
+        popup.setY(bounds.getMaxY() - NOTIFICATION_HEIGHT - 20);
+    }
 
-        // Move each existing notification up by one position (except the newest one we just added)
-        for (int i = 0; i < activeNotifications.size() - 1; i++) {
-            Timeline moveUpAnim = getTimeline(i, screenMinX, screenWidth);
-            moveUpAnim.play();
+    // Starts the layout driver after a popup was added or removed; a no-op while it is running
+    private static void layoutNotifications() {
+        if (layoutRunning) return;
+        if (layoutDriver == null) {
+            layoutDriver = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    layoutFrame(now);
+                }
+            };
         }
+        layoutRunning = true;
+        lastLayoutFrame = 0;
+        layoutDriver.start();
     }
 
-    private static Timeline getTimeline(int i, double screenMinX, double screenWidth) {
-        Popup popup = activeNotifications.get(i);
-        double targetX = screenMinX + screenWidth - NOTIFICATION_WIDTH - 20;
-        double currentY = popup.getY();
-        double targetY = currentY - (NOTIFICATION_HEIGHT + NOTIFICATION_SPACING);
-
-        // Smooth transition upward
-        return new Timeline(
-                new KeyFrame(Duration.millis(200), _ -> {
-                    popup.setX(targetX);
-                    popup.setY(targetY);
-                })
-        );
+    // Eases every popup toward its slot, stacked upward from the bottom-right corner newest first,
+    // and stops the driver once they have all arrived. However many popups come and go, a frame
+    // costs one pass over them.
+    private static void layoutFrame(long now) {
+        double follow = lastLayoutFrame == 0 ? 0 : 1 - Math.exp(-(now - lastLayoutFrame) / 1e6 / LAYOUT_EASE_MILLIS);
+        lastLayoutFrame = now;
+
+        Rectangle2D bounds = screenBounds();
+        double targetX = bounds.getMaxX() - NOTIFICATION_WIDTH - 20;
+        int count = activeNotifications.size();
+        boolean settled = true;
+        for (int i = 0; i < count; i++) {
+            Popup popup = activeNotifications.get(i);
+            double targetY = bounds.getMaxY() - NOTIFICATION_HEIGHT - 20 - (count - 1 - i) * (NOTIFICATION_HEIGHT + NOTIFICATION_SPACING);
+            double distance = targetY - popup.getY();
+            if (Math.abs(distance) < 0.5) {
+                if (distance != 0) popup.setY(targetY);
+            } else {
+                popup.setY(popup.getY() + distance * follow);
+                settled = false;
+            }
+            if (popup.getX() != targetX) popup.setX(targetX);
+        }
+        if (settled) {
+            layoutDriver.stop();
+            layoutRunning = false;
+        }
     }
 
-    // Reposition all notifications when one is removed (move them down)
-    private static void repositionNotifications() {
+    // Visual bounds of the screen showing the app, kept until the set of screens changes or the
+    // app window moves, resizes or is replaced, any of which can put it on another screen
+    private static Rectangle2D screenBounds() {
+        if (!screenListenerInstalled) {
+            Screen.getScreens().addListener((ListChangeListener<Screen>) _ -> cachedScreenBounds = null);
+            screenListenerInstalled = true;
+        }
         Window window = getPrimaryWindow();
-        Screen screen = (window != null) ? Screen.getScreensForRectangle(window.getX(), window.getY(), window.getWidth(), window.getHeight()).getFirst()
-                : Screen.getPrimary();
-
-        double screenWidth = screen.getVisualBounds().getWidth();
-        double screenHeight = screen.getVisualBounds().getHeight();
-        double screenMinX = screen.getVisualBounds().getMinX();
-        double screenMinY = screen.getVisualBounds().getMinY();
+        if (window != boundsWindow) {
+            watchWindow(boundsWindow, false);
+            watchWindow(window, true);
+            boundsWindow = window;
+            cachedScreenBounds = null;
+        }
+        if (cachedScreenBounds == null) {
+            Screen screen = (window != null) ? Screen.getScreensForRectangle(window.getX(), window.getY(), window.getWidth(), window.getHeight()).stream().findFirst().orElse(Screen.getPrimary())
+                    : Screen.getPrimary();
+            cachedScreenBounds = screen.getVisualBounds();
+        }
+        return cachedScreenBounds;
+    }
 
-        // Reposition from bottom to top (bottom-right behavior)
-        for (int i = 0; i < activeNotifications.size(); i++) {
-            Popup popup = activeNotifications.get(i);
-            double targetX = screenMinX + screenWidth - NOTIFICATION_WIDTH - 20;
-            // Bottom notification is at index 0, stack upward from there
-            double targetY = screenMinY + screenHeight - NOTIFICATION_HEIGHT - 20 - (i * (NOTIFICATION_HEIGHT + NOTIFICATION_SPACING));
-
-            // Smooth transition to new position
-            Timeline repositionAnim = new Timeline(
-                    new KeyFrame(Duration.millis(200), _ -> {
-                        popup.setX(targetX);
-                        popup.setY(targetY);
-                    })
-            );
-            repositionAnim.play();
+    private static void watchWindow(Window window, boolean watch) {
+        if (window == null) return;
+        for (ReadOnlyDoubleProperty property : List.of(window.xProperty(), window.yProperty(), window.widthProperty(), window.heightProperty())) {
+            if (watch) {
+                property.addListener(windowMoved);
+            } else {
+                property.removeListener(windowMoved);
+            }
         }
     }
 
     private static Window getPrimaryWindow() {
-        // Try to get any available window that's currently showing
+        // Try to get any app window that's currently showing; popups, including these, don't count
         return Stage.getWindows().stream()
-                .filter(Window::isShowing)
+                .filter(window -> window instanceof Stage && window.isShowing())
                 .findFirst()
                 .orElse(null);
     }
 
     // Alternative method with custom styling options
     public static void showCustomNotification(String title, String text, String color) {
-        Platform.runLater(() -> createCustomStyledNotification(title, text, color));
-    }
-
-    private static void createCustomStyledNotification(String title, String text, String colorScheme) {
-        // Similar to above but with custom color scheme
-        Popup popup = new Popup();
-        popup.setAutoHide(false);
-
-        VBox mainContainer = new VBox();
-        mainContainer.setPrefSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
-
-        VBox contentContainer = getVBox(colorScheme);
-
-        // Rest of the implementation similar to above...
-        HBox headerContainer = new HBox(12);
-        headerContainer.setAlignment(Pos.CENTER_LEFT);
-
-        Label iconLabel = new Label("🔔");
-        iconLabel.setStyle(
-                "-fx-font-size: 24px;" +
-                        "-fx-text-fill: white;" +
-                        "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.3), 3, 0.5, 0, 1);"
-        );
-
-        Label titleLabel = new Label(title);
-        titleLabel.setStyle(
-                "-fx-font-size: 18px;" +
-                        "-fx-font-weight: 700;" +
-                        "-fx-text-fill: white;" +
-                        "-fx-font-family: 'Segoe UI', 'Helvetica Neue', 'Arial', sans-serif;" +
-                        "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.4), 2, 0.5, 0, 1);"
-        );
-
-        headerContainer.getChildren().addAll(iconLabel, titleLabel);
-
-        Label messageLabel = new Label(text);
-        messageLabel.setWrapText(true);
-        messageLabel.setMaxWidth(NOTIFICATION_WIDTH - 48);
-        messageLabel.setStyle(
-                "-fx-font-size: 14px;" +
-                        "-fx-text-fill: rgba(255, 255, 255, 0.95);" +
-                        "-fx-font-family: 'Segoe UI', 'Helvetica Neue', 'Arial', sans-serif;"
-        );
-
-        Region spacer = new Region();
-        VBox.setVgrow(spacer, Priority.ALWAYS);
-
-        contentContainer.getChildren().addAll(headerContainer, messageLabel, spacer);
-        mainContainer.getChildren().add(contentContainer);
-        popup.getContent().add(mainContainer);
-
-        positionNotificationBottomRight(popup);
-
-        // Entry animation
-        mainContainer.setTranslateX(400);
-        mainContainer.setOpacity(0);
-
-        TranslateTransition slideIn = new TranslateTransition(Duration.millis(350), mainContainer);
-        slideIn.setFromX(400);
-        slideIn.setToX(0);
-        slideIn.setInterpolator(Interpolator.EASE_OUT);
-
-        FadeTransition fadeIn = new FadeTransition(Duration.millis(350), mainContainer);
-        fadeIn.setFromValue(0);
-        fadeIn.setToValue(1);
-
-        ParallelTransition entryAnimation = new ParallelTransition(slideIn, fadeIn);
-
-        popup.show(getPrimaryWindow());
-        activeNotifications.add(popup);
-        entryAnimation.play();
-
-        Timeline autoHide = new Timeline();
-        autoHide.getKeyFrames().add(new KeyFrame(Duration.seconds(4), _ -> hideNotification(popup, mainContainer)));
-        autoHide.play();
-
-        mainContainer.setOnMouseClicked(_ -> hideNotification(popup, mainContainer));
-    }
-
-    private static VBox getVBox(String colorScheme) {
-        VBox contentContainer = new VBox(8);
-        contentContainer.setPadding(new Insets(20, 24, 20, 24));
-        contentContainer.setAlignment(Pos.TOP_LEFT);
-        contentContainer.setPrefSize(NOTIFICATION_WIDTH, NOTIFICATION_HEIGHT);
-
-        // Custom color schemes
-        String backgroundGradient = switch (colorScheme.toLowerCase()) {
-            case "success" -> "linear-gradient(to bottom right, #11998e 0%, #38ef7d 100%)";
-            case "warning" -> "linear-gradient(to bottom right, #f093fb 0%, #f5576c 100%)";
-            case "info" -> "linear-gradient(to bottom right, #4facfe 0%, #00f2fe 100%)";
-            default -> "linear-gradient(to bottom right, #667eea 0%, #764ba2 100%)";
-        };
-
-        contentContainer.setStyle(
-                "-fx-background-color: " + backgroundGradient + ";" +
-                        "-fx-background-radius: 16;" +
-                        "-fx-border-radius: 16;" +
-                        "-fx-border-color: rgba(255, 255, 255, 0.2);" +
-                        "-fx-border-width: 1.5;" +
-                        "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.25), 20, 0.3, 0, 8);"
-        );
-        return contentContainer;
+        enqueue(new Pending(title, text, color));
     }
 
     // Method to clear all notifications
     public static void clearAllNotifications() {
         for (Popup popup : new ArrayList<>(activeNotifications)) {
             popup.hide();
+            if (popup.getUserData() instanceof NotificationView view) {
+                recycle(view);
+            }
         }
-        activeNotifications.clear();
     }
-}
\ No newline at end of file
+}
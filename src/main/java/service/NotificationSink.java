@@ -0,0 +1,15 @@
+package service;
+
+import java.time.Instant;
+
+// Somewhere a fired reminder is delivered: the desktop popup, the console, a journal file, a
+// webhook. NotificationDispatcher calls deliver on the sink's own worker thread, so a sink may
+// block, but it is interrupted once the dispatcher's timeout runs out.
+public interface NotificationSink {
+    record Notification(int noteId, String title, String text, Instant firedAt) {}
+
+    // Short name used for the worker thread and in log lines
+    String name();
+
+    void deliver(Notification notification) throws Exception;
+}
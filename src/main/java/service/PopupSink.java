@@ -0,0 +1,14 @@
+package service;
+
+// Desktop popups; NotificationService only queues here, its own delivery thread does the rest
+public class PopupSink implements NotificationSink {
+    @Override
+    public String name() {
+        return "popup";
+    }
+
+    @Override
+    public void deliver(Notification notification) {
+        NotificationService.showNotification(notification.title(), notification.text());
+    }
+}
@@ -0,0 +1,248 @@
+package service;
+
+import com.example.anote2.db.Database;
+import com.example.anote2.db.DatabaseConfig;
+import com.example.anote2.db.NoteChange;
+import com.example.anote2.db.NoteChangeFeed;
+import com.example.anote2.db.QuartzConnectionProvider;
+import model.Note;
+import model.NotificationJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.utils.DBConnectionManager;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Reminders as Quartz jobs, one per note, persisted in the QRTZ_ tables of the notes database.
+// A reminder that came due while the app was closed misfires and fires once on the next start.
+// The note change feed keeps the jobs in step with the notes; an in-memory database uses Quartz's
+// RAM store since there is nothing to survive a restart.
+public class QuartzReminderScheduler implements ReminderEngine {
+    private static final String SCHEDULER_NAME = "anote-reminders";
+    private static final String DATA_SOURCE = "anoteNotes";
+    private static final String GROUP = "reminders";
+    // A trigger is treated as misfired once it is this late
+    private static final long MISFIRE_THRESHOLD_MS = 60_000;
+
+    private final Scheduler scheduler;
+    // Quartz calls can wait on the database, so changes are applied in order on their own thread
+    private final ExecutorService changes = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "reminder-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Runnable unsubscribe;
+
+    public QuartzReminderScheduler(Consumer<List<Note>> onDue) throws SchedulerException {
+        DatabaseConfig config = Database.config();
+        if (config == null) {
+            throw new SchedulerException("Database.initialize() has not been called");
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", SCHEDULER_NAME);
+        properties.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        properties.setProperty("org.quartz.threadPool.makeThreadsDaemons", "true");
+        properties.setProperty("org.quartz.scheduler.makeSchedulerThreadDaemon", "true");
+        properties.setProperty("org.quartz.jobStore.misfireThreshold", String.valueOf(MISFIRE_THRESHOLD_MS));
+        if (config.isInMemory()) {
+            properties.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+        } else {
+            DBConnectionManager.getInstance().addConnectionProvider(DATA_SOURCE, new QuartzConnectionProvider(config));
+            properties.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
+            properties.setProperty("org.quartz.jobStore.dataSource", DATA_SOURCE);
+            properties.setProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+            // Reads job data with getBinaryStream, which the SQLite driver supports, instead of getBlob
+            properties.setProperty("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.HSQLDBDelegate");
+            // String-only job data is stored as properties rather than serialized objects
+            properties.setProperty("org.quartz.jobStore.useProperties", "true");
+        }
+
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        scheduler.getContext().put(NotificationJob.HANDLER, (Consumer<List<Note>>) notes -> {
+            onDue.accept(notes);
+            fired(notes);
+        });
+    }
+
+    // Brings the jobs in line with the notes table, then starts firing, which also runs the
+    // misfire policy for reminders missed while the app was closed. The sync runs on the change
+    // thread so a change that races it is applied after it.
+    public void start() throws SchedulerException {
+        unsubscribe = NoteChangeFeed.subscribe(change -> changes.execute(() -> apply(change)));
+        try {
+            changes.submit(() -> {
+                resync();
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof SchedulerException cause ? cause : new SchedulerException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchedulerException("Interrupted while syncing reminder jobs", e);
+        }
+        scheduler.start();
+    }
+
+    @Override
+    public void stop() {
+        if (unsubscribe != null) {
+            unsubscribe.run();
+            unsubscribe = null;
+        }
+        changes.shutdown();
+        try {
+            changes.awaitTermination(5, TimeUnit.SECONDS);
+            // Let a running job finish so it does not query a closed database
+            scheduler.shutdown(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SchedulerException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // One trigger per note, since schedule() replaces a note's previous trigger
+    @Override
+    public int pendingCount() {
+        try {
+            return scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP)).size();
+        } catch (SchedulerException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private void apply(NoteChange change) {
+        try {
+            switch (change.kind()) {
+                case INSERT -> schedule(change.noteId(), change.note().nextReminderAt(Instant.now()));
+                case UPDATE -> {
+                    if (change.fields().contains(Note.Field.REMINDER)) {
+                        schedule(change.noteId(), change.note().nextReminderAt(Instant.now()));
+                    }
+                }
+                case DELETE -> scheduler.deleteJob(jobKey(change.noteId()));
+                case RELOAD -> resync();
+            }
+        } catch (SchedulerException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Only the next occurrence of a recurring reminder is scheduled; once it has fired, the
+    // one after it is computed and scheduled in its place. When there is no next occurrence the
+    // job goes away with its fired trigger, like a one-shot reminder's.
+    private void fired(List<Note> notes) {
+        for (Note note : notes) {
+            if (!note.isRecurring()) continue;
+            changes.execute(() -> {
+                try {
+                    Instant next = note.nextReminderAt(Instant.now());
+                    if (next != null) {
+                        schedule(note.getId(), next);
+                    }
+                } catch (SchedulerException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    // Schedules every upcoming reminder that has no matching trigger and drops jobs whose note no
+    // longer has a reminder. Jobs with an overdue trigger are left for the misfire policy.
+    private void resync() throws SchedulerException {
+        Map<Integer, Instant> upcoming = Database.findUpcomingReminders(Instant.now());
+        Date now = new Date();
+
+        int dropped = 0;
+        for (JobKey key : scheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP))) {
+            if (!upcoming.containsKey(noteId(key)) && !hasOverdueTrigger(key, now)) {
+                scheduler.deleteJob(key);
+                dropped++;
+            }
+        }
+
+        int added = 0;
+        for (Map.Entry<Integer, Instant> entry : upcoming.entrySet()) {
+            if (hasOverdueTrigger(jobKey(entry.getKey()), now)) continue;
+            if (!scheduler.checkExists(triggerKey(entry.getKey(), entry.getValue()))) {
+                schedule(entry.getKey(), entry.getValue());
+                added++;
+            }
+        }
+        System.out.printf("Reminder jobs in sync: %d upcoming, %d added, %d dropped.%n", upcoming.size(), added, dropped);
+    }
+
+    private boolean hasOverdueTrigger(JobKey key, Date now) throws SchedulerException {
+        for (Trigger trigger : scheduler.getTriggersOfJob(key)) {
+            if (trigger.getNextFireTime() != null && trigger.getNextFireTime().before(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Makes dueAt the note's only trigger. Jobs are not durable, so Quartz deletes a job together
+    // with its last trigger once that has fired; the job is stored along with its trigger, which
+    // also recreates it if unscheduling an old trigger, or a trigger firing meanwhile, removed it.
+    private void schedule(int noteId, Instant dueAt) throws SchedulerException {
+        JobKey jobKey = jobKey(noteId);
+        if (dueAt == null || !dueAt.isAfter(Instant.now())) {
+            scheduler.deleteJob(jobKey);
+            return;
+        }
+        TriggerKey triggerKey = triggerKey(noteId, dueAt);
+        for (Trigger trigger : scheduler.getTriggersOfJob(jobKey)) {
+            if (!trigger.getKey().equals(triggerKey)) {
+                scheduler.unscheduleJob(trigger.getKey());
+            }
+        }
+        if (scheduler.checkExists(triggerKey)) return;
+
+        JobDetail job = JobBuilder.newJob(NotificationJob.class)
+                .withIdentity(jobKey)
+                .usingJobData(NotificationJob.NOTE_ID, String.valueOf(noteId))
+                .build();
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .withIdentity(triggerKey)
+                .forJob(jobKey)
+                .startAt(Date.from(dueAt))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+                .build();
+        scheduler.scheduleJob(job, Set.of(trigger), true);
+    }
+
+    private static JobKey jobKey(int noteId) {
+        return JobKey.jobKey("note-" + noteId, GROUP);
+    }
+
+    // One key per occurrence, so a fired trigger and its successor never collide
+    private static TriggerKey triggerKey(int noteId, Instant dueAt) {
+        return TriggerKey.triggerKey("note-" + noteId + "@" + dueAt.toEpochMilli(), GROUP);
+    }
+
+    private static int noteId(JobKey key) {
+        return Integer.parseInt(key.getName().substring("note-".length()));
+    }
+}
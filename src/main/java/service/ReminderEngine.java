@@ -0,0 +1,31 @@
+package service;
+
+import model.Note;
+import org.quartz.SchedulerException;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Whatever fires reminders for the app: the durable Quartz scheduler when it starts, otherwise
+// the in-process queue, which still covers everything but reminders missed while closed.
+public interface ReminderEngine {
+    void stop();
+
+    // Reminders scheduled and not yet fired; stays at most the number of notes with reminders
+    int pendingCount();
+
+    // Call once the database is initialized; onDue receives due notes off the FX thread
+    static ReminderEngine start(Consumer<List<Note>> onDue) {
+        try {
+            QuartzReminderScheduler quartz = new QuartzReminderScheduler(onDue);
+            quartz.start();
+            return quartz;
+        } catch (SchedulerException | RuntimeException e) {
+            System.err.println("Quartz reminders unavailable, falling back to the in-process queue: " + e.getMessage());
+            e.printStackTrace();
+            ReminderScheduler fallback = new ReminderScheduler(onDue);
+            fallback.start();
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package service;
+
+import com.example.anote2.db.Database;
+import com.example.anote2.db.NoteChange;
+import com.example.anote2.db.NoteChangeFeed;
+import model.Note;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Fires note reminders at their due time. Upcoming reminders are loaded once into a set ordered
+// by due time and a single timer is armed for the earliest one; the note change feed keeps the
+// set current, so nothing polls the database. All queue state is confined to the timer thread.
+public class ReminderScheduler implements ReminderEngine {
+    // The timer never sleeps longer than this, so a suspended laptop or a clock change is
+    // noticed within a minute instead of when the original delay runs out
+    private static final long MAX_SLEEP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private record Entry(Instant dueAt, int noteId) {}
+
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "reminder-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final NavigableSet<Entry> queue = new TreeSet<>(Comparator.comparing(Entry::dueAt).thenComparingInt(Entry::noteId));
+    // The handle for each note's queued reminder, so an edit or delete replaces or cancels it
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Consumer<List<Note>> onDue;
+    private ScheduledFuture<?> armed;
+    private Instant armedFor;
+    private volatile int pending;
+    private Runnable unsubscribe;
+
+    // onDue receives the notes whose reminders came due, on the timer thread
+    public ReminderScheduler(Consumer<List<Note>> onDue) {
+        this.onDue = onDue;
+        // Re-arming cancels the previous timer task; drop it from the executor right away
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    // Call once the database is initialized. Subscribing before loading means a change that races
+    // the load is applied after it, since both run on the timer thread.
+    public synchronized void start() {
+        if (unsubscribe != null) return;
+        unsubscribe = NoteChangeFeed.subscribe(change -> timer.execute(() -> apply(change)));
+        timer.execute(() -> {
+            load();
+            arm();
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (unsubscribe != null) {
+            unsubscribe.run();
+            unsubscribe = null;
+        }
+        timer.shutdownNow();
+    }
+
+    // Reminders waiting to fire, at most one per note
+    @Override
+    public int pendingCount() {
+        return pending;
+    }
+
+    private void load() {
+        queue.clear();
+        entries.clear();
+        Database.findUpcomingReminders(Instant.now()).forEach(this::track);
+    }
+
+    private void apply(NoteChange change) {
+        switch (change.kind()) {
+            case INSERT -> track(change.noteId(), change.note().nextReminderAt(Instant.now()));
+            case UPDATE -> {
+                if (change.fields().contains(Note.Field.REMINDER)) {
+                    track(change.noteId(), change.note().nextReminderAt(Instant.now()));
+                }
+            }
+            case DELETE -> cancel(change.noteId());
+            case RELOAD -> load();
+        }
+        arm();
+    }
+
+    // Replaces the note's reminder; a missing or past due time just cancels it
+    private void track(int noteId, Instant dueAt) {
+        cancel(noteId);
+        if (dueAt == null || !dueAt.isAfter(Instant.now())) return;
+
+        Entry entry = new Entry(dueAt, noteId);
+        entries.put(noteId, entry);
+        queue.add(entry);
+        pending = entries.size();
+    }
+
+    private void cancel(int noteId) {
+        Entry previous = entries.remove(noteId);
+        if (previous != null) {
+            queue.remove(previous);
+            pending = entries.size();
+        }
+    }
+
+    private void fireDue() {
+        armed = null;
+        armedFor = null;
+        Instant now = Instant.now();
+        List<Integer> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.first().dueAt().isAfter(now)) {
+            Entry entry = queue.pollFirst();
+            entries.remove(entry.noteId());
+            due.add(entry.noteId());
+        }
+        pending = entries.size();
+
+        if (!due.isEmpty()) {
+            List<Note> notes = Database.getNotes(due);
+            try {
+                onDue.accept(notes);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            // A recurring reminder goes back in the queue at its next occurrence
+            for (Note note : notes) {
+                if (note.isRecurring()) {
+                    track(note.getId(), note.nextReminderAt(now));
+                }
+            }
+        }
+        arm();
+    }
+
+    // Points the timer at the earliest entry, leaving it alone if it already is
+    private void arm() {
+        Entry head = queue.isEmpty() ? null : queue.first();
+        if (head != null && head.dueAt().equals(armedFor)) return;
+        if (armed != null) {
+            armed.cancel(false);
+            armed = null;
+            armedFor = null;
+        }
+        if (head == null) return;
+
+        long delay = Math.max(0, Duration.between(Instant.now(), head.dueAt()).toMillis());
+        armedFor = head.dueAt();
+        armed = timer.schedule(this::fireDue, Math.min(delay, MAX_SLEEP_MILLIS), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.anote2.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99));
+        assertEquals(0.0, histogram.mean(), 0);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 60; v++) {
+            histogram.record(v);
+        }
+        assertEquals(30, histogram.percentile(50));
+        assertEquals(54, histogram.percentile(90));
+        assertEquals(60, histogram.percentile(100));
+        assertEquals(60, histogram.max());
+        assertEquals(30.5, histogram.mean(), 1e-9);
+    }
+
+    @Test
+    void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v);
+        }
+        assertWithinBucket(500, histogram.percentile(50));
+        assertWithinBucket(990, histogram.percentile(99));
+        // Never above the largest recorded value, even though its bucket reaches further
+        assertEquals(1000, histogram.percentile(100));
+    }
+
+    @Test
+    void tailIsNotHiddenByTheBulk() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(100);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100_000);
+        }
+        assertWithinBucket(100, histogram.percentile(99));
+        assertWithinBucket(100_000, histogram.percentile(99.9));
+    }
+
+    @Test
+    void bucketsStayWithinThreePercentAtAnyMagnitude() {
+        List<Long> values = new ArrayList<>(List.of(63L, 64L, 65L, 127L, 128L, Long.MAX_VALUE));
+        for (double v = 64; v < 1e18; v *= 1.37) {
+            values.add((long) v);
+        }
+        for (long v : values) {
+            int index = LatencyHistogram.indexOf(v);
+            long upper = LatencyHistogram.valueOf(index);
+            assertTrue(upper >= v, v + " lands in a bucket ending at " + upper);
+            assertTrue(upper - v <= v / 32, v + " lands in a bucket ending at " + upper);
+            assertEquals(index, LatencyHistogram.indexOf(upper), "bucket end of " + v);
+        }
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.percentile(100));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    void resetForgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(99));
+        histogram.record(7);
+        assertEquals(7, histogram.percentile(50));
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.count());
+        assertEquals(100_000, histogram.max());
+        assertEquals(50_000.5, histogram.mean(), 1e-6);
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 32,
+                "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.anote2.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NoteTransferCsvTest {
+
+    @Test
+    void plainFieldsAreWrittenBare() throws IOException {
+        assertEquals("a,b,,c\r\n", write(new String[] {"a", "b", "", "c"}));
+    }
+
+    @Test
+    void specialCharactersAreQuoted() throws IOException {
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\rhere\"\r\n",
+                write(new String[] {"a,b", "say \"hi\"", "two\nlines", "cr\rhere"}));
+    }
+
+    @Test
+    void nullIsWrittenAsEmpty() throws IOException {
+        assertEquals("a,,b\r\n", write(new String[] {"a", null, "b"}));
+    }
+
+    @Test
+    void rowsSurviveARoundTrip() throws IOException {
+        String[][] rows = {
+                {"Buy milk, eggs", "#FFFFFF", "2026-01-05", "", "", "", ""},
+                {"Line one\r\nLine two\nLine three", "#FFEE58", "2026-01-06", "2026-01-07", "09:30", "", "FREQ=DAILY"},
+                {"\"quoted\" at both ends \"", "", "", "", "", "[{\"description\":\"a, \\\"b\\\"\",\"completed\":false}]", ""},
+                {"", "", "", "", "", "", ""},
+                {"  spaces kept  ", "ünïcödé ✓", ",", "\"", "\"\"", "\n", "\r"},
+        };
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            for (String[] row : rows) {
+                NoteTransfer.writeCsvRow(writer, row);
+            }
+        }
+        BufferedReader reader = new BufferedReader(new StringReader(text.toString()));
+        for (String[] row : rows) {
+            assertEquals(List.of(row), NoteTransfer.readCsvRow(reader));
+        }
+        assertNull(NoteTransfer.readCsvRow(reader));
+    }
+
+    @Test
+    void readsBareLineEndingsAndAMissingLastNewline() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("a,b\nc,\"d\"\r\"e\nf\",g"));
+        assertEquals(List.of("a", "b"), NoteTransfer.readCsvRow(reader));
+        assertEquals(List.of("c", "d"), NoteTransfer.readCsvRow(reader));
+        assertEquals(List.of("e\nf", "g"), NoteTransfer.readCsvRow(reader));
+        assertNull(NoteTransfer.readCsvRow(reader));
+    }
+
+    private static String write(String[] fields) throws IOException {
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            NoteTransfer.writeCsvRow(writer, fields);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecurrenceRuleTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @AfterEach
+    void restoreTimeZone() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    void parsesEveryPartAndPrintsItBack() {
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=WE,MO;UNTIL=20271231");
+        assertEquals(RecurrenceRule.Frequency.WEEKLY, rule.frequency());
+        assertEquals(2, rule.interval());
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), rule.days());
+        assertEquals(LocalDate.of(2027, 12, 31), rule.until());
+        assertEquals("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;UNTIL=20271231", rule.toString());
+        assertEquals(rule, RecurrenceRule.parse(rule.toString()));
+    }
+
+    @Test
+    void parsesLowerCaseAndDateTimeUntil() {
+        RecurrenceRule rule = RecurrenceRule.parse(" rrule:freq=daily;until=20260301T120000Z ");
+        assertEquals(RecurrenceRule.daily().frequency(), rule.frequency());
+        assertEquals(LocalDate.of(2026, 3, 1), rule.until());
+        assertEquals("FREQ=DAILY;UNTIL=20260301", rule.toString());
+    }
+
+    @Test
+    void rejectsWhatItDoesNotSupport() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=YEARLY"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MON"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=3"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;INTERVAL=0"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;INTERVAL"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("INTERVAL=2"));
+    }
+
+    @Test
+    void dailyStepsByInterval() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+        assertEquals(start, RecurrenceRule.daily().nextAfter(start, start.minusDays(3)));
+        assertEquals(LocalDateTime.of(2026, 1, 6, 9, 0), RecurrenceRule.daily().nextAfter(start, LocalDateTime.of(2026, 1, 5, 9, 0)));
+        RecurrenceRule everyThird = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3");
+        assertEquals(LocalDateTime.of(2026, 1, 7, 9, 0), everyThird.nextAfter(start, LocalDateTime.of(2026, 1, 4, 9, 0)));
+    }
+
+    @Test
+    void weeklyVisitsEachListedDay() {
+        // 5 January 2026 is a Monday
+        LocalDateTime start = LocalDateTime.of(2026, 1, 5, 8, 0);
+        RecurrenceRule rule = RecurrenceRule.weekly(Set.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY));
+        assertEquals(LocalDateTime.of(2026, 1, 7, 8, 0), rule.nextAfter(start, start));
+        assertEquals(LocalDateTime.of(2026, 1, 12, 8, 0), rule.nextAfter(start, LocalDateTime.of(2026, 1, 7, 8, 0)));
+        RecurrenceRule fortnightly = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2");
+        assertEquals(LocalDateTime.of(2026, 1, 19, 8, 0), fortnightly.nextAfter(start, start));
+    }
+
+    @Test
+    void weeklyNeverFallsBeforeStart() {
+        // Starts on a Wednesday, so the Monday of that week is skipped
+        LocalDateTime start = LocalDateTime.of(2026, 1, 7, 8, 0);
+        RecurrenceRule rule = RecurrenceRule.weekly(Set.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY));
+        assertEquals(start, rule.nextAfter(start, LocalDateTime.of(2026, 1, 1, 0, 0)));
+        assertEquals(LocalDateTime.of(2026, 1, 12, 8, 0), rule.nextAfter(start, start));
+    }
+
+    @Test
+    void monthlyClampsToMonthEndAndComesBack() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 31, 10, 0);
+        RecurrenceRule rule = RecurrenceRule.monthly();
+        assertEquals(LocalDateTime.of(2026, 2, 28, 10, 0), rule.nextAfter(start, start));
+        assertEquals(LocalDateTime.of(2026, 3, 31, 10, 0), rule.nextAfter(start, LocalDateTime.of(2026, 2, 28, 10, 0)));
+        assertEquals(LocalDateTime.of(2026, 4, 30, 10, 0), rule.nextAfter(start, LocalDateTime.of(2026, 3, 31, 10, 0)));
+        assertEquals(LocalDateTime.of(2028, 2, 29, 10, 0), rule.nextAfter(start, LocalDateTime.of(2028, 2, 1, 0, 0)));
+    }
+
+    @Test
+    void stopsAfterUntil() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20260103");
+        assertEquals(LocalDateTime.of(2026, 1, 3, 9, 0), rule.nextAfter(start, LocalDateTime.of(2026, 1, 2, 9, 0)));
+        assertNull(rule.nextAfter(start, LocalDateTime.of(2026, 1, 3, 9, 0)));
+    }
+
+    @Test
+    void keepsWallClockTimeAcrossDaylightSaving() {
+        TimeZone.setDefault(TimeZone.getTimeZone(NEW_YORK));
+        // Clocks in New York go forward on 8 March 2026 and back on 1 November 2026
+        Note note = recurringNote(LocalDate.of(2026, 3, 7), LocalTime.of(9, 0));
+        Instant first = at(2026, 3, 7, 9, 0);
+        Instant next = note.nextReminderAt(first);
+        assertEquals(at(2026, 3, 8, 9, 0), next);
+        assertEquals(Duration.ofHours(23), Duration.between(first, next));
+
+        note = recurringNote(LocalDate.of(2026, 10, 31), LocalTime.of(9, 0));
+        assertEquals(Duration.ofHours(25), Duration.between(at(2026, 10, 31, 9, 0), note.nextReminderAt(at(2026, 10, 31, 9, 0))));
+    }
+
+    @Test
+    void skippedHourMovesForwardOnlyThatDay() {
+        TimeZone.setDefault(TimeZone.getTimeZone(NEW_YORK));
+        // 02:30 does not exist on 8 March 2026, so that reminder rings at 03:30
+        Note note = recurringNote(LocalDate.of(2026, 3, 7), LocalTime.of(2, 30));
+        Instant skipped = note.nextReminderAt(at(2026, 3, 7, 2, 30));
+        assertEquals(at(2026, 3, 8, 3, 30), skipped);
+        assertEquals(at(2026, 3, 9, 2, 30), note.nextReminderAt(skipped));
+    }
+
+    private static Note recurringNote(LocalDate date, LocalTime time) {
+        Note note = new Note("Standup", "#FFFFFF", date);
+        note.setReminder(date, time);
+        note.setRecurrence(RecurrenceRule.daily());
+        return note;
+    }
+
+    private static Instant at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, NEW_YORK).toInstant();
+    }
+}